@@ -1,5 +1,8 @@
-import java.lang.reflect.Method;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 
 /**
  * Abstract class that represents an Appliance.
@@ -9,19 +12,24 @@ import java.util.ArrayList;
  * ECS Smart Meter - COMP1202 Coursework
  * @author dsj1n15
  */
-public abstract class Appliance {
+public abstract class Appliance implements Cloneable {
+	// Cached utility types, indexed by ordinal
+	private final static UtilityType[] TYPES = UtilityType.values();
+
 	// Appliance properties
-	protected int electricUsage;
-	protected int gasUsage;
-	protected int waterUsage;
+	private int[] usage = new int[TYPES.length]; // use per unit time, indexed by UtilityType ordinal
 	private int timeOn; // time / 15 minutes
 
 	// Ongoing properties
 	private boolean currentState = false; // ON = true, OFF = false
 	private int currentTimeOn = 0; // time / 15 minutes
+	private RandomStream randomStream = null; // created when first needed if not set
+	// House the appliance is in and its index there, told when the appliance turns on or off
+	private House house = null;
+	private int houseIndex;
 
-	// Connected meters
-	private ArrayList<Meter> meters = new ArrayList<Meter>();
+	// Connected meters, indexed by UtilityType ordinal, null if not connected
+	private Meter[] meters = new Meter[TYPES.length];
 	// Tasks that can be run by Appliance
 	private ArrayList<ApplianceTask> tasks = new ArrayList<ApplianceTask>();
 	
@@ -39,9 +47,9 @@ public abstract class Appliance {
 		}
 
 		// Assign variables
-		this.electricUsage = electricUsage;
-		this.gasUsage = gasUsage;
-		this.waterUsage = waterUsage;
+		usage[UtilityType.ELECTRIC.ordinal()] = electricUsage;
+		usage[UtilityType.GAS.ordinal()] = gasUsage;
+		usage[UtilityType.WATER.ordinal()] = waterUsage;
 		this.timeOn = timeOn;
 
 		// Check if arguments are sensible for Appliance type
@@ -56,18 +64,113 @@ public abstract class Appliance {
 		return currentState;
 	}
 	
+	/**
+	 * @return  Value of currentTimeOn
+	 */
+	int getCurrentTimeOn() {
+		return currentTimeOn;
+	}
+
+	/**
+	 * @return  Value of timeOn
+	 */
+	int getTimeOn() {
+		return timeOn;
+	}
+
+	/**
+	 * Restore the ongoing state of the appliance, e.g. from a compiled or saved copy.
+	 * @param  currentState Whether the appliance is on
+	 * @param  currentTimeOn Unit times since the appliance was turned on
+	 */
+	void restoreState(boolean currentState, int currentTimeOn) {
+		setCurrentState(currentState);
+		this.currentTimeOn = currentTimeOn;
+	}
+
+	/**
+	 * Set whether the appliance is on, telling its house if it is in one.
+	 * @param  currentState New state, ON = true, OFF = false
+	 */
+	private void setCurrentState(boolean currentState) {
+		this.currentState = currentState;
+		if (house != null) {
+			house.applianceStateChanged(houseIndex);
+		}
+	}
+
+	/**
+	 * @return  House the appliance is in, null if none
+	 */
+	House getHouse() {
+		return house;
+	}
+
+	/**
+	 * Set the house the appliance is in, which is told whenever the appliance turns on or off.
+	 * @param  house House the appliance is in, null if none
+	 * @param  houseIndex Index of the appliance in the house
+	 */
+	void setHouse(House house, int houseIndex) {
+		this.house = house;
+		this.houseIndex = houseIndex;
+	}
+
+	/**
+	 * Check whether timePasses has any effect, so the appliance must be stepped each unit time.
+	 * An appliance that is off does nothing unless it is stochastic.
+	 * @return  True if on or stochastic, else false
+	 */
+	boolean isActive() {
+		return currentState || isStochastic();
+	}
+
+	/**
+	 * Get the stream stochastic behaviour of the appliance must draw from.
+	 * If no stream has been set, one with a new seed is created.
+	 * @return  Random stream owned by appliance
+	 */
+	protected RandomStream getRandomStream() {
+		if (randomStream == null) {
+			randomStream = new RandomStream();
+		}
+		return randomStream;
+	}
+
+	/**
+	 * @param  randomStream Stream for stochastic behaviour of the appliance to draw from
+	 */
+	void setRandomStream(RandomStream randomStream) {
+		this.randomStream = randomStream;
+	}
+
+	/**
+	 * Write state specific to the type of appliance to a checkpoint.
+	 * Appliances with ongoing state beyond being on/off must override this and readState.
+	 * @param  out Stream to write to
+	 * @throws  IOException If the stream cannot be written
+	 */
+	protected void writeState(DataOutputStream out) throws IOException {
+		// No extra state
+	}
+
+	/**
+	 * Read state specific to the type of appliance from a checkpoint, as written by writeState.
+	 * @param  in Stream to read from
+	 * @throws  IOException If the stream cannot be read
+	 */
+	protected void readState(DataInputStream in) throws IOException {
+		// No extra state
+	}
+
 	/**
 	 * Get appliance usage for a given type.
 	 * @param  type Enumerated representation of type
 	 * @return  The usage respective to the type
 	 */
 	public int getUsageFromType(String type) {
-		try {
-			return getUsageFromType(UtilityType.valueOf(type.toUpperCase()));
-		}
-		catch (Exception e){
-			return 0;
-		}
+		UtilityType utilityType = UtilityType.fromString(type);
+		return (utilityType != null) ? getUsageFromType(utilityType) : 0;
 	}
 	
 	/**
@@ -76,16 +179,16 @@ public abstract class Appliance {
 	 * @return  The usage respective to the type
 	 */
 	public int getUsageFromType(UtilityType type) {
-		switch (type) {
-			case ELECTRIC:
-				return electricUsage;
-			case GAS:
-				return gasUsage;
-			case WATER:
-				return waterUsage;
-			default:
-				return 0;
-		}	
+		return usage[type.ordinal()];
+	}
+
+	/**
+	 * Set appliance usage for a given type, e.g. when usage varies each unit time.
+	 * @param  type Enumerated representation of type
+	 * @param  amount Use per unit time, negative when generating
+	 */
+	protected void setUsageFromType(UtilityType type, int amount) {
+		usage[type.ordinal()] = amount;
 	}
 	
 	/**
@@ -98,7 +201,7 @@ public abstract class Appliance {
 	 */
 	protected void checkUsageAllowed(UtilityType[] allowedList, boolean generation) {
 		// Loop for all values in UtilityTypes
-		for (UtilityType type : UtilityType.values()) {		
+		for (UtilityType type : TYPES) {
 			boolean allowed = false;
 			
 			// Check if type is in allowed list
@@ -144,10 +247,15 @@ public abstract class Appliance {
 		}
 		else {
 			String meterType = meter.getType();
-			Meter existingMeter = getMeterOfType(meterType);
+			UtilityType type = UtilityType.fromString(meterType);
 			
-			// Check meter is not already attached, else add to array list
-			if (meters.contains(meter)) {
+			// Check meter is of a utility type and not already attached, else add to array
+			if (type == null) {
+				Logger.warning(String.format("Meter '%s' not connected to appliance '%s' - not a utility type", meterType, applianceType));
+				return;
+			}
+			Meter existingMeter = meters[type.ordinal()];
+			if (existingMeter == meter) {
 				return;
 			}
 			// Meter exists and is not being replaced
@@ -161,7 +269,7 @@ public abstract class Appliance {
 					removeMeter(existingMeter);
 				}
 				Logger.message(String.format("Meter '%s' connected to appliance '%s'", meterType, applianceType));
-				meters.add(meter);	
+				meters[type.ordinal()] = meter;
 			}
 		}
 	}
@@ -176,8 +284,10 @@ public abstract class Appliance {
 			Logger.warning(String.format("Meter not removed from appliance '%s' - null meter", applianceType)); 
 		}
 		else {
-			// Attempt to remove meter, true if successful
-			if (meters.remove(meter)) {
+			// Attempt to remove meter, only if it is the connected meter of its type
+			UtilityType type = UtilityType.fromString(meter.getType());
+			if (type != null && meters[type.ordinal()] == meter) {
+				meters[type.ordinal()] = null;
 				Logger.message(String.format("Meter '%s' removed from appliance '%s", meter.getType(), applianceType));
 			}
 			else {
@@ -186,29 +296,15 @@ public abstract class Appliance {
 		}
 	}
 	
-	/**
-	 * Returns the Meter that matches a type.
-	 * @param   meterType Type of meter to search for
-	 * @return  matched Meter or null if not found
-	 */
-	private Meter getMeterOfType(String meterType) {
-		// Search for meter type
-		for (Meter meter : meters) {
-			if (meter.getType().equals(meterType)) {
-				return meter;
-			}
-		}
-		return null; // meter not found
-	}
-	
 	/**
 	 * Simulate a unit time passing.
+	 * A house only calls this whilst the appliance is active, see isActive.
 	 */
 	public void timePasses() {
 		
 		// If appliance is still on
 		if (currentState) {
-			incMeters();
+			incMeters(1);
 			currentTimeOn++;   
 		}
 
@@ -220,44 +316,139 @@ public abstract class Appliance {
 
 	}
 
+	/**
+	 * Simulate many unit times passing in one step.
+	 * Only valid when canSkipTime() is true and ticks does not pass the end of the
+	 * duty cycle; the result is then identical to calling timePasses() ticks times.
+	 * Usage is credited in closed form (usage * ticks) unless the appliance is stochastic,
+	 * in which case each unit time is still simulated.
+	 * @param  ticks Number of unit times to pass [1 <= n <= getTimeUntilOff()]
+	 */
+	void skipTime(int ticks) {
+		// Usage of stochastic appliances changes every unit time
+		if (isStochastic()) {
+			for (int i = 0; i < ticks; i++) {
+				timePasses();
+			}
+			return;
+		}
+
+		// If appliance is still on
+		if (currentState) {
+			incMeters(ticks);
+			currentTimeOn += ticks;
+		}
+
+		// Check if appliance should be turned off
+		if (currentTimeOn == timeOn) {
+			turnOff();
+			Logger.message(String.format("'%s' duty cycle has completed and has turned off automatically", getType()));
+		}
+	}
+
+	/**
+	 * Check whether unit times can be passed in a single step using skipTime.
+	 * An appliance that is on can only skip if every meter it uses is connected
+	 * and able to take its usage.
+	 * @return  True if skipTime can be used, else false
+	 */
+	boolean canSkipTime() {
+		// Nothing is credited to meters by an appliance that is off
+		if (!currentState) {
+			return true;
+		}
+		return hasMetersForUsage();
+	}
+
+	/**
+	 * Check whether every meter the appliance uses is connected and able to take its usage.
+	 * Missing meters must warn every unit time so usage cannot be credited in bulk.
+	 * @return  True if all meters are connected, else false
+	 */
+	boolean hasMetersForUsage() {
+		for (int t = 0; t < TYPES.length; t++) {
+			int amount = usage[t];
+			if (amount != 0) {
+				Meter meterOfType = meters[t];
+				if (meterOfType == null || (amount < 0 && !meterOfType.canGenerate())) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the connected Meter that matches a type.
+	 * @param   type Type of meter to search for
+	 * @return  matched Meter or null if not found
+	 */
+	Meter getMeterOfType(UtilityType type) {
+		return meters[type.ordinal()];
+	}
+
+	/**
+	 * Get the number of unit times until the appliance turns itself off.
+	 * @return  Unit times until the duty cycle completes, Integer.MAX_VALUE if never
+	 */
+	int getTimeUntilOff() {
+		if (!currentState || timeOn == -1) {
+			return Integer.MAX_VALUE;
+		}
+		return timeOn - currentTimeOn;
+	}
+
+	/**
+	 * Return whether usage of the appliance changes unpredictably between unit times.
+	 * Stochastic appliances must be simulated one unit time at a time, even when off.
+	 * @return  True if stochastic, false by default
+	 */
+	public boolean isStochastic() {
+		return false;
+	}
+
 	/**
 	 * Attempt to increment all utility meter typs by their
 	 * respective usage values per unit time.
+	 * @param  ticks Number of unit times to increment for
 	 */
-	private void incMeters() {
+	private void incMeters(int ticks) {
 		// Loop through all possible utility types
-		for (UtilityType type : UtilityType.values()) {
-			incMeterType(type);
+		for (int t = 0; t < TYPES.length; t++) {
+			// Check if meter requires incrementing
+			if (usage[t] != 0) {
+				incMeterType(t, ticks);
+			}
 		}
 	}
 	
 	/**
 	 * Increment meter of specified type.
-	 * @param  meterType Type of meter to search for
-	 * @param  amount How much to increment meters by
+	 * @param  t Ordinal of UtilityType of meter
+	 * @param  ticks Number of unit times to increment for
 	 */ 
-	private void incMeterType(UtilityType meterType) {
+	private void incMeterType(int t, int ticks) {
 		// Determine amount to increment by
-		int amount = getUsageFromType(meterType);
-				
-		// Check if meter requires incrementing
-		if (amount == 0) {
-			return; 
-		}
+		int amount = usage[t] * ticks;
 
 		// Get the meter from meters
-		Meter meterOfType = getMeterOfType(meterType.asString());
+		Meter meterOfType = meters[t];
 	
 		// If null was returned, meter not found
 		if (meterOfType == null) {
-			Logger.warning(String.format("Attempted meter increment but meter of type '%s' not connected", meterType.asString()));
+			Logger.warning(String.format("Attempted meter increment but meter of type '%s' not connected", TYPES[t].asString()));
 		}
 		else {
 			// Check if amount should increment consumed or generated
 			// [Negative values imply generated]
 			if (amount > 0) {
-				// For meter of type, incrementConsumed
-				meterOfType.incrementConsumed(amount);
+				// For meter of type, incrementConsumed, priced at the time of the house if billed
+				if (house != null) {
+					meterOfType.incrementConsumed(amount, house.getTime());
+				}
+				else {
+					meterOfType.incrementConsumed(amount);
+				}
 			}
 			else {
 				// Check if meter has the generation capability
@@ -266,7 +457,7 @@ public abstract class Appliance {
 					meterOfType.incrementGenerated(-amount);
 				}
 				else {
-					Logger.warning(String.format("Attempted meter generation increment but meter of type '%s' does not support generation", meterType.asString()));
+					Logger.warning(String.format("Attempted meter generation increment but meter of type '%s' does not support generation", TYPES[t].asString()));
 				}
 			}
 		}
@@ -281,7 +472,7 @@ public abstract class Appliance {
 		// If not already in use, reset and start
 		if (!currentState) {
 			turnOff(); // reset
-			currentState = true;
+			setCurrentState(true);
 		}
 	}
 
@@ -290,7 +481,7 @@ public abstract class Appliance {
 	 * Manual calling allowed but should be targeted using a task.
 	 */
 	public void turnOff() {
-		currentState = false;
+		setCurrentState(false);
 		currentTimeOn = 0;
 	}
 	
@@ -309,6 +500,13 @@ public abstract class Appliance {
 		tasks.add(task);
 	}
 	
+	/**
+	 * @return  Returns the iterator for tasks
+	 */
+	public Iterator<ApplianceTask> getTasksIterator() {
+		return tasks.iterator();
+	}
+
 	/**
 	 * Gets an ApplianceTask from the Appliance task list using taskName.
 	 * @param  taskName Name of task to get
@@ -332,18 +530,13 @@ public abstract class Appliance {
 	public boolean doTask(ApplianceTask task) {
 		// Check if exact task object is member of appliance
 		if (tasks.contains(task)) {
-			// Get method as defined by task
-			Method taskMethod = task.getMethod();
-
-			if (taskMethod != null) {
-				try {
-					// Attempt to run method
-					taskMethod.invoke(this);
-					return true; // task ran successfully
-				} 
-				catch (Exception e) {
-					Logger.warning("Task failed when invoked on Appliance");
-				}
+			try {
+				// Attempt to run action on this appliance
+				task.getAction().accept(this);
+				return true; // task ran successfully
+			} 
+			catch (RuntimeException e) {
+				Logger.warning("Task failed when invoked on Appliance");
 			}
 		}
 		else {
@@ -352,21 +545,6 @@ public abstract class Appliance {
 		return false; // task did not run successfully
 	}
 	
-	/**
-	 * Get the Method object for a given name.
-	 * @param  methodName Name of method to get
-	 * @return  Method object with name of methodName, if not found return null
-	 */
-	protected Method getMethod(String methodName) {
-		try {
-			// Get the class of the current instance and get the method of methodName in the class
-			return this.getClass().getMethod(methodName);
-		} catch (NoSuchMethodException e) {
-			// Method not found
-			return null;
-		}
-	}
-	
 	/**	
 	 * Return the type of Appliance as a string.
 	 * @return  Appliance type as string
@@ -391,4 +569,36 @@ public abstract class Appliance {
 		return new UtilityType[] {};
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Create a copy of the appliance and its meters, see HouseCopier.
+	 * Tasks are shared as they never change. Subclass properties are copied as is.
+	 * The copy is in no house until one adds it.
+	 * @param  copier Copier holding copies already made
+	 * @return  Copy of appliance
+	 */
+	Appliance copy(HouseCopier copier) {
+		Appliance copy;
+		try {
+			copy = (Appliance) clone();
+		}
+		catch (CloneNotSupportedException e) {
+			Logger.error(String.format("Appliance could not be copied\nCaught exception: %s", e));
+			return null;
+		}
+		copier.register(this, copy);
+		copy.house = null;
+		copy.usage = usage.clone();
+		copy.meters = new Meter[TYPES.length];
+		for (int t = 0; t < TYPES.length; t++) {
+			if (meters[t] != null) {
+				copy.meters[t] = copier.copyOf(meters[t]);
+			}
+		}
+		copy.tasks = new ArrayList<ApplianceTask>(tasks);
+		if (randomStream != null) {
+			copy.randomStream = new RandomStream(randomStream.getState());
+		}
+		return copy;
+	}
+
+}
@@ -1,9 +1,11 @@
-import java.lang.reflect.Method;
+import java.util.function.Consumer;
 
 /**
  * Class that represents an Appliance task.
  * A task consists of a name that is used to identify a task. 
- * Properties of the task and a method to invoke the task also exist.
+ * Properties of the task and an action that does the task to an Appliance also exist.
+ * Actions are not bound to an Appliance, so copies of an Appliance share its tasks,
+ * e.g. Appliance::turnOn calls turnOn of whichever appliance the task is done on.
  * 
  * ECS Smart Meter - COMP1202 Coursework
  * @author dsj1n15
@@ -11,7 +13,7 @@ import java.lang.reflect.Method;
 public class ApplianceTask {
 	// ApplianceTask properties
 	private String name;
-	private Method method;
+	private Consumer<Appliance> action;
 	private boolean isAdultOnly;
 	private Boolean requiredState; // null when no requiredState
 
@@ -19,29 +21,29 @@ public class ApplianceTask {
 	 * Constructor for ApplianceTask.
 	 * Set requiredState to null, representing a task that can be run no matter the state.
 	 * @param  name Name of task
-	 * @param  method Method attached to task
+	 * @param  action Action attached to task
 	 * @param  isAdultOnly Whether task can only be done by adult
 	 */
-	public ApplianceTask(String name, Method method, boolean isAdultOnly) {
-		this(name, method, isAdultOnly, null);
+	public ApplianceTask(String name, Consumer<Appliance> action, boolean isAdultOnly) {
+		this(name, action, isAdultOnly, null);
 	}
 
 	/**
 	 * Constructor for ApplianceTask.
 	 * @param  name Name of task
-	 * @param  method Method attached to task
+	 * @param  action Action attached to task
 	 * @param  isAdultOnly Whether task can only be done by adult
 	 * @param  requiredState Whether task requires a specific current state of Appliance
 	 */
-	public ApplianceTask(String name, Method method, boolean isAdultOnly, Boolean requiredState) {
-		// Check if task has a valid method, else throw an exception 
-		if (method == null) {
-			Logger.error(String.format("Task name '%s' does not have a valid method", name));		
+	public ApplianceTask(String name, Consumer<Appliance> action, boolean isAdultOnly, Boolean requiredState) {
+		// Check if task has a valid action, else throw an exception 
+		if (action == null) {
+			Logger.error(String.format("Task name '%s' does not have a valid action", name));		
 		}
 
 		// Assign properties
 		this.name = name;
-		this.method = method;
+		this.action = action;
 		this.isAdultOnly = isAdultOnly;
 		this.requiredState = requiredState;
 	}
@@ -54,10 +56,10 @@ public class ApplianceTask {
 	}
 
 	/**
-	 * @return  Value of method
+	 * @return  Value of action
 	 */
-	public Method getMethod() {
-		return method;
+	public Consumer<Appliance> getAction() {
+		return action;
 	}
 	
 	/**
@@ -0,0 +1,145 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Class that measures the cost of dispatching an appliance task.
+ * Appliances of several types are turned on and off through a reflective Method (with the
+ * exception handling doTask needed for it), a MethodHandle and an ApplianceTask action.
+ * After warm up runs, each run reports nanoseconds per dispatch, followed by the median.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class ApplianceTaskBenchmark {
+	// Defaults of arguments
+	private final static int DEFAULT_DISPATCHES = 10000000;
+	// Appliances dispatched to, cycling through their types so call sites see several classes
+	private final static int APPLIANCE_COUNT = 1024;
+	// Number of runs to let the JIT compiler settle, then number of measured runs
+	private final static int WARM_UP_COUNT = 3;
+	private final static int RUN_COUNT = 5;
+
+	// Dispatch methods
+	private final static String[] DISPATCH_NAMES = {"Method.invoke", "MethodHandle", "ApplianceTask action"};
+	private final static int REFLECTION = 0;
+	private final static int METHOD_HANDLE = 1;
+	private final static int ACTION = 2;
+
+	private static Method turnOnMethod;
+	private static Method turnOffMethod;
+	private static MethodHandle turnOnHandle;
+	private static MethodHandle turnOffHandle;
+	private static Consumer<Appliance> turnOnAction = Appliance::turnOn;
+	private static Consumer<Appliance> turnOffAction = Appliance::turnOff;
+	// Sink for results so dispatches cannot be optimised away
+	private static int onCount = 0;
+
+	/**
+	 * --- Main
+	 * @param  args : [0] = number of dispatches per run
+	 */
+	public static void main(String[] args) {
+		// Disable all logging, errors are still thrown
+		Logger.setMessageSettings(false, false);
+		Logger.setWarningSettings(false, false);
+		Logger.setErrorSettings(false);
+
+		int dispatches = DEFAULT_DISPATCHES;
+		try {
+			if (args.length >= 1) {
+				dispatches = Integer.parseInt(args[0]);
+			}
+		}
+		catch (NumberFormatException e) {
+			Logger.error("Number of dispatches must be an integer");
+		}
+
+		try {
+			turnOnMethod = Appliance.class.getMethod("turnOn");
+			turnOffMethod = Appliance.class.getMethod("turnOff");
+			MethodType voidType = MethodType.methodType(void.class);
+			turnOnHandle = MethodHandles.lookup().findVirtual(Appliance.class, "turnOn", voidType);
+			turnOffHandle = MethodHandles.lookup().findVirtual(Appliance.class, "turnOff", voidType);
+		}
+		catch (ReflectiveOperationException e) {
+			Logger.error(String.format("Appliance methods could not be found\nCaught exception: %s", e));
+		}
+
+		Appliance[] appliances = new Appliance[APPLIANCE_COUNT];
+		for (int i = 0; i < APPLIANCE_COUNT; i++) {
+			switch (i % 4) {
+				case 0: appliances[i] = new TV(); break;
+				case 1: appliances[i] = new Kettle(); break;
+				case 2: appliances[i] = new NightLight(); break;
+				default: appliances[i] = new Boiler(); break;
+			}
+		}
+
+		System.out.println(String.format("Benchmark: %d dispatches over %d appliances", dispatches, APPLIANCE_COUNT));
+		for (int d = 0; d < DISPATCH_NAMES.length; d++) {
+			for (int r = 0; r < WARM_UP_COUNT; r++) {
+				run(d, appliances, dispatches);
+			}
+			double[] costs = new double[RUN_COUNT];
+			for (int r = 0; r < RUN_COUNT; r++) {
+				costs[r] = run(d, appliances, dispatches);
+			}
+			Arrays.sort(costs);
+			System.out.println(String.format("%-20s median %.2f ns/dispatch (runs %.2f to %.2f)",
+					DISPATCH_NAMES[d], costs[RUN_COUNT / 2], costs[0], costs[RUN_COUNT - 1]));
+		}
+		// Use the sink so it is not removed
+		if (onCount == -1) {
+			System.out.println(onCount);
+		}
+	}
+
+	/**
+	 * Turn appliances on and off with a dispatch method and time it.
+	 * @param  dispatch Dispatch method to use
+	 * @param  appliances Appliances to dispatch to
+	 * @param  dispatches Number of dispatches
+	 * @return  Nanoseconds per dispatch
+	 */
+	private static double run(int dispatch, Appliance[] appliances, int dispatches) {
+		long start = System.nanoTime();
+		for (int i = 0; i < dispatches; i++) {
+			Appliance appliance = appliances[i % appliances.length];
+			boolean on = ((i / appliances.length) % 2 == 0);
+			switch (dispatch) {
+				case REFLECTION:
+					// As doTask did before tasks held actions
+					try {
+						(on ? turnOnMethod : turnOffMethod).invoke(appliance);
+					}
+					catch (Exception e) {
+						Logger.warning("Task failed when invoked on Appliance");
+					}
+					break;
+				case METHOD_HANDLE:
+					try {
+						(on ? turnOnHandle : turnOffHandle).invokeExact(appliance);
+					}
+					catch (Throwable e) {
+						Logger.warning("Task failed when invoked on Appliance");
+					}
+					break;
+				case ACTION:
+					(on ? turnOnAction : turnOffAction).accept(appliance);
+					break;
+				default:
+					Logger.error(String.format("Unknown dispatch method %d", dispatch));
+					break;
+			}
+			if (appliance.getCurrentState()) {
+				onCount++;
+			}
+		}
+		return (System.nanoTime() - start) / (double) dispatches;
+	}
+
+}
@@ -0,0 +1,106 @@
+/**
+ * Class representing the running bill of a Meter, priced by a TariffSchedule.
+ * Each increment of the meter is priced as it happens at the rate of the unit time of the
+ * house that made it, so the bill is always up to date without revisiting past readings,
+ * and a meter shared by houses at different times prices each house's use correctly.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class Bill implements Cloneable {
+	private TariffSchedule schedule;
+	private long cost = 0; // in hundredths of a penny, negative when in credit
+	private int chargedDays; // days that standing charges have been made for
+
+	/**
+	 * Constructor for Bill.
+	 * @param  schedule Prices to bill with
+	 * @param  time Current time of the house
+	 */
+	public Bill(TariffSchedule schedule, int time) {
+		if (schedule == null) {
+			Logger.error("Bill must have a tariff schedule");
+		}
+		this.schedule = schedule;
+		this.chargedDays = time / House.DAY_LENGTH;
+	}
+
+	/**
+	 * @param  inc Amount consumed
+	 * @param  time Unit time of the house consuming, sets the price per unit
+	 */
+	void addConsumed(int inc, int time) {
+		cost += inc * schedule.getRate(time);
+	}
+
+	/**
+	 * @param  inc Amount generated
+	 */
+	void addGenerated(int inc) {
+		cost -= inc * schedule.getExportRate();
+	}
+
+	/**
+	 * Add standing charges for each day up to the given day not yet charged.
+	 * @param  day Number of days completed
+	 */
+	void chargeDays(int day) {
+		if (day > chargedDays) {
+			cost += (day - chargedDays) * schedule.getStandingCharge();
+			chargedDays = day;
+		}
+	}
+
+	/**
+	 * @return  Returns the value of schedule
+	 */
+	public TariffSchedule getSchedule() {
+		return schedule;
+	}
+
+	/**
+	 * @return  Total cost, in hundredths of a penny
+	 */
+	public long getCost() {
+		return cost;
+	}
+
+	/**
+	 * @return  Returns the value of chargedDays
+	 */
+	int getChargedDays() {
+		return chargedDays;
+	}
+
+	/**
+	 * Restore the running total of the bill, e.g. from a saved copy.
+	 * @param  cost Total cost, in hundredths of a penny
+	 * @param  chargedDays Days that standing charges have been made for
+	 */
+	void restoreCost(long cost, int chargedDays) {
+		this.cost = cost;
+		this.chargedDays = chargedDays;
+	}
+
+	/**
+	 * @return  Total cost in pounds to the nearest penny e.g. '12.34' or '-0.05'
+	 */
+	public String asString() {
+		long pence = (Math.abs(cost) + 50) / 100;
+		return String.format("%s%d.%02d", (cost < 0 && pence > 0) ? "-" : "", pence / 100, pence % 100);
+	}
+
+	/**
+	 * @return  Copy of the bill using the same schedule
+	 */
+	Bill copy() {
+		try {
+			return (Bill) clone();
+		}
+		catch (CloneNotSupportedException e) {
+			Logger.error(String.format("Bill could not be copied\nCaught exception: %s", e));
+			return null;
+		}
+	}
+
+}
@@ -43,8 +43,8 @@ public class Boiler extends Appliance {
 		
 		// Define Appliance tasks on object instantiation
 		// An exception is thrown if the task method does not exist
-		addTask(new ApplianceTask("TurnOnBoiler", getMethod("turnOn"), true, false));
-		addTask(new ApplianceTask("TurnOffBoiler", getMethod("turnOff"), true, true));
+		addTask(new ApplianceTask("TurnOnBoiler", Appliance::turnOn, true, false));
+		addTask(new ApplianceTask("TurnOffBoiler", Appliance::turnOff, true, true));
 	}
 
 	@Override
@@ -0,0 +1,308 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+/**
+ * Class that saves and restores the state of a simulation in a binary checkpoint file.
+ * The houses restored into must be read from the same configuration as those saved,
+ * a checkpoint only holds state that changes as the simulation runs:
+ * - The time of each house
+ * - The on/off state and time on of each appliance, plus any appliance specific state
+ * - The readings of each meter, plus its running bill if billed
+ * - The tasks each person has still to do
+ * Objects shared between houses are saved once, in order of first appearance.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class Checkpoint {
+	// File identifier ('SMCP') and format version
+	private final static int MAGIC = 0x534D4350;
+	private final static int VERSION = 3;
+	// Extension of file written before replacing the checkpoint
+	private final static String TEMP_EXTENSION = ".tmp";
+
+	/**
+	 * Save the state of houses to a checkpoint file.
+	 * The file is written in full before replacing any existing checkpoint, so a
+	 * simulation stopped mid-save leaves the previous checkpoint intact.
+	 * @param  houses Houses to save
+	 * @param  filename Filename of checkpoint
+	 * @param  elapsed Unit times completed by the simulation
+	 */
+	public static void save(ArrayList<House> houses, String filename, int elapsed) {
+		File file = new File(filename);
+		File tempFile = new File(filename + TEMP_EXTENSION);
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			try {
+				write(out, houses, elapsed);
+			}
+			finally {
+				out.close();
+			}
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, 
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e) {
+			Logger.error(String.format("Checkpoint '%s' could not be saved\nCaught exception: %s", filename, e));
+		}
+	}
+
+	/**
+	 * Restore the state of houses from a checkpoint file.
+	 * @param  houses Houses to restore, read from the configuration that was saved
+	 * @param  filename Filename of checkpoint
+	 * @return  Unit times completed by the simulation when saved
+	 */
+	public static int load(ArrayList<House> houses, String filename) {
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)));
+			try {
+				return read(in, houses);
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (IOException e) {
+			Logger.error(String.format("Checkpoint '%s' could not be restored\nCaught exception: %s", filename, e));
+			return 0;
+		}
+	}
+
+	/**
+	 * Write the state of houses.
+	 * @param  out Stream to write to
+	 * @param  houses Houses to save
+	 * @param  elapsed Unit times completed by the simulation
+	 * @throws  IOException If the stream cannot be written
+	 */
+	private static void write(DataOutputStream out, ArrayList<House> houses, int elapsed) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(elapsed);
+
+		// Houses and their appliances
+		out.writeInt(houses.size());
+		for (House house : houses) {
+			out.writeUTF(house.getName());
+			out.writeInt(house.getTime());
+			out.writeInt(house.numAppliances());
+			Iterator<Appliance> itrAppliances = house.getAppliancesIterator();
+			while (itrAppliances.hasNext()) {
+				Appliance appliance = itrAppliances.next();
+				out.writeUTF(appliance.getType());
+				out.writeBoolean(appliance.getCurrentState());
+				out.writeInt(appliance.getCurrentTimeOn());
+				appliance.writeState(out);
+			}
+		}
+
+		// Meters
+		ArrayList<Meter> meters = getMeters(houses);
+		out.writeInt(meters.size());
+		for (Meter meter : meters) {
+			out.writeUTF(meter.getType());
+			out.writeInt(meter.getConsumed());
+			out.writeInt(meter.getGenerated());
+			Bill bill = meter.getBill();
+			out.writeBoolean(bill != null);
+			if (bill != null) {
+				out.writeLong(bill.getCost());
+				out.writeInt(bill.getChargedDays());
+			}
+		}
+
+		// People and their pending tasks
+		IdentityHashMap<House, Integer> houseIndexes = getHouseIndexes(houses);
+		ArrayList<Person> people = getPeople(houses);
+		out.writeInt(people.size());
+		for (Person person : people) {
+			out.writeUTF(person.getName());
+			ArrayList<PersonTask> tasks = person.getPendingTasks();
+			out.writeInt(tasks.size());
+			for (PersonTask task : tasks) {
+				Integer houseIndex = houseIndexes.get(task.getTargetHouse());
+				if (houseIndex == null) {
+					Logger.error(String.format("Task '%s' of '%s' targets a house not being simulated",
+							task.getTaskName(), person.getName()));
+				}
+				out.writeInt(houseIndex);
+				out.writeInt(task.getSetTime());
+				out.writeUTF(task.getTaskName());
+			}
+		}
+	}
+
+	/**
+	 * Read the state of houses, checking it was saved from the same configuration.
+	 * @param  in Stream to read from
+	 * @param  houses Houses to restore
+	 * @return  Unit times completed by the simulation when saved
+	 * @throws  IOException If the stream cannot be read
+	 */
+	private static int read(DataInputStream in, ArrayList<House> houses) throws IOException {
+		if (in.readInt() != MAGIC) {
+			Logger.error("File is not a checkpoint");
+		}
+		int version = in.readInt();
+		if (version != VERSION) {
+			Logger.error(String.format("Checkpoint version '%d' is not supported", version));
+		}
+		int elapsed = in.readInt();
+
+		// Houses and their appliances
+		checkCount("houses", in.readInt(), houses.size());
+		for (House house : houses) {
+			checkName("House", in.readUTF(), house.getName());
+			house.restoreTime(in.readInt());
+			checkCount(String.format("appliances in '%s'", house.getName()), in.readInt(), house.numAppliances());
+			Iterator<Appliance> itrAppliances = house.getAppliancesIterator();
+			while (itrAppliances.hasNext()) {
+				Appliance appliance = itrAppliances.next();
+				checkName("Appliance", in.readUTF(), appliance.getType());
+				boolean currentState = in.readBoolean();
+				appliance.restoreState(currentState, in.readInt());
+				appliance.readState(in);
+			}
+		}
+
+		// Meters
+		ArrayList<Meter> meters = getMeters(houses);
+		checkCount("meters", in.readInt(), meters.size());
+		for (Meter meter : meters) {
+			checkName("Meter", in.readUTF(), meter.getType());
+			int consumed = in.readInt();
+			meter.restoreReadings(consumed, in.readInt());
+			boolean billed = in.readBoolean();
+			if (billed != (meter.getBill() != null)) {
+				Logger.error(String.format("Meter '%s' was %s when saved, restore with the same tariff", 
+						meter.getType(), billed ? "billed" : "not billed"));
+			}
+			if (billed) {
+				long cost = in.readLong();
+				meter.getBill().restoreCost(cost, in.readInt());
+			}
+		}
+
+		// People and their pending tasks, scheduled again as house times were restored
+		ArrayList<Person> people = getPeople(houses);
+		checkCount("people", in.readInt(), people.size());
+		for (Person person : people) {
+			checkName("Person", in.readUTF(), person.getName());
+			person.clearTasks();
+			int taskCount = in.readInt();
+			for (int i = 0; i < taskCount; i++) {
+				int houseIndex = in.readInt();
+				if (houseIndex < 0 || houseIndex >= houses.size()) {
+					Logger.error(String.format("Task of '%s' targets unknown house '%d'", person.getName(), houseIndex));
+				}
+				int setTime = in.readInt();
+				person.restoreTask(new PersonTask(in.readUTF(), setTime, houses.get(houseIndex)));
+			}
+		}
+		return elapsed;
+	}
+
+	/**
+	 * Check the number of objects saved matches the number being restored.
+	 * @param  description Description of objects, used for errors
+	 * @param  saved Number saved
+	 * @param  actual Number being restored
+	 */
+	private static void checkCount(String description, int saved, int actual) {
+		if (saved != actual) {
+			Logger.error(String.format("Checkpoint has %d %s but configuration has %d", saved, description, actual));
+		}
+	}
+
+	/**
+	 * Check the name or type of an object saved matches the object being restored.
+	 * @param  description Description of object, used for errors
+	 * @param  saved Name saved
+	 * @param  actual Name of object being restored
+	 */
+	private static void checkName(String description, String saved, String actual) {
+		if (!saved.equals(actual)) {
+			Logger.error(String.format("%s '%s' in checkpoint does not match '%s' in configuration", description, saved, actual));
+		}
+	}
+
+	/**
+	 * Get the index of each house.
+	 * @param  houses Houses to index
+	 * @return  Map of house to index
+	 */
+	private static IdentityHashMap<House, Integer> getHouseIndexes(ArrayList<House> houses) {
+		IdentityHashMap<House, Integer> houseIndexes = new IdentityHashMap<House, Integer>();
+		for (int i = 0; i < houses.size(); i++) {
+			houseIndexes.put(houses.get(i), i);
+		}
+		return houseIndexes;
+	}
+
+	/**
+	 * Get the distinct meters connected to houses or their appliances.
+	 * @param  houses Houses to search
+	 * @return  Meters in order of first appearance
+	 */
+	private static ArrayList<Meter> getMeters(ArrayList<House> houses) {
+		IdentityHashMap<Meter, Boolean> seen = new IdentityHashMap<Meter, Boolean>();
+		ArrayList<Meter> meters = new ArrayList<Meter>();
+		for (House house : houses) {
+			Iterator<Meter> itrMeters = house.getMetersIterator();
+			while (itrMeters.hasNext()) {
+				addDistinct(itrMeters.next(), seen, meters);
+			}
+			Iterator<Appliance> itrAppliances = house.getAppliancesIterator();
+			while (itrAppliances.hasNext()) {
+				Appliance appliance = itrAppliances.next();
+				for (UtilityType type : UtilityType.values()) {
+					addDistinct(appliance.getMeterOfType(type), seen, meters);
+				}
+			}
+		}
+		return meters;
+	}
+
+	/**
+	 * Get the distinct people in houses.
+	 * @param  houses Houses to search
+	 * @return  People in order of first appearance
+	 */
+	private static ArrayList<Person> getPeople(ArrayList<House> houses) {
+		IdentityHashMap<Person, Boolean> seen = new IdentityHashMap<Person, Boolean>();
+		ArrayList<Person> people = new ArrayList<Person>();
+		for (House house : houses) {
+			Iterator<Person> itrPeople = house.getPeopleIterator();
+			while (itrPeople.hasNext()) {
+				addDistinct(itrPeople.next(), seen, people);
+			}
+		}
+		return people;
+	}
+
+	/**
+	 * Add an object to a list if not already seen.
+	 * @param  object Object to add, ignored if null
+	 * @param  seen Objects seen so far
+	 * @param  list List to add to
+	 */
+	private static <T> void addDistinct(T object, IdentityHashMap<T, Boolean> seen, ArrayList<T> list) {
+		if (object != null && seen.put(object, Boolean.TRUE) == null) {
+			list.add(object);
+		}
+	}
+
+}
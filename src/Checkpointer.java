@@ -0,0 +1,52 @@
+import java.util.ArrayList;
+
+/**
+ * Class of TickListener that saves a Checkpoint at a fixed interval of unit time.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class Checkpointer extends TickListener {
+	private String filename;
+	private int interval;
+	private int startElapsed;
+
+	/**
+	 * Constructor for Checkpointer.
+	 * Use the simulation start as the first unit time.
+	 * @param  filename Filename of checkpoint
+	 * @param  interval Unit times between checkpoints [> 0]
+	 */
+	public Checkpointer(String filename, int interval) {
+		this(filename, interval, 0);
+	}
+
+	/**
+	 * Constructor for Checkpointer.
+	 * @param  filename Filename of checkpoint
+	 * @param  interval Unit times between checkpoints [> 0]
+	 * @param  startElapsed Unit times already completed when the engine starts, e.g. after a restore
+	 */
+	public Checkpointer(String filename, int interval, int startElapsed) {
+		if (filename == null) {
+			Logger.error("Checkpoint filename cannot be null");
+		}
+		if (interval < 1) {
+			Logger.error("Checkpoint interval must be positive");
+		}
+		this.filename = filename;
+		this.interval = interval;
+		this.startElapsed = startElapsed;
+	}
+
+	@Override
+	public int getInterval() {
+		return interval;
+	}
+
+	@Override
+	public void tickComplete(ArrayList<House> houses, int elapsed) {
+		Checkpoint.save(houses, filename, startElapsed + elapsed);
+	}
+
+}
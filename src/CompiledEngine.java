@@ -0,0 +1,353 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+/**
+ * Class of SimulationEngine that flattens houses into primitive arrays before simulating.
+ * Appliance usage per UtilityType, duty cycles, time on and on/off state are held in arrays
+ * indexed by appliance, and meter increments are accumulated in arrays indexed by meter and house.
+ * Each unit time is then a tight loop over the arrays instead of virtual calls through lists.
+ *
+ * The object model is still used where behaviour cannot be compiled:
+ * - Stochastic appliances and appliances missing a meter run their own timePasses method
+ * - When a PersonTask is due, the house's appliance state is copied to its objects, people
+ *   run their tasks as normal and the state is copied back
+ * - Accumulated meter increments are added to Meters before each day report, and before
+ *   the rate of a billed meter changes so that increments are priced correctly. Each house
+ *   accumulates apart into a meter it shares, so its increments are priced at its own time
+ * Output and meter totals match the SequentialEngine exactly.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class CompiledEngine extends SimulationEngine {
+	// Cached utility types, indexed by ordinal
+	private final static UtilityType[] TYPES = UtilityType.values();
+
+	// Houses and the range of appliance indexes of each house
+	private House[] houses;
+	private int[] firstAppliance; // house h owns [firstAppliance[h], firstAppliance[h + 1])
+	private boolean[] billed; // set when house has a billed meter
+
+	// Appliance arrays, indexed by appliance
+	private Appliance[] appliances;
+	private int[][] usage; // indexed by UtilityType ordinal then appliance
+	private int[][] slotIndex; // accumulation slot, indexed by UtilityType ordinal then appliance, -1 if unused
+	private int[] timeOn;
+	private int[] currentTimeOn;
+	private long[] stateBits; // set when appliance is on
+	private long[] objectBits; // set when appliance runs through the object model
+
+	// Meter arrays, indexed by meter
+	private Meter[] meters;
+	private int[][] meterSlots; // accumulation slots of each meter, one per house using it
+	private int[][] houseMeters; // indexes of meters used by each house
+
+	// Accumulation slot arrays, indexed by slot (a meter as used by one house)
+	private int[] slotHouses; // house whose increments the slot holds
+	private long[] consumed; // increments not yet added to meter
+	private long[] generated; // increments not yet added to meter
+
+	@Override
+	public void run(ArrayList<House> houseList, int simLength) {
+		compile(houseList);
+
+		clock.start();
+		// Loop for simulation length
+		for (int i = 0; i < simLength; i++) {
+			// Simulate a unit time passing for each house
+			for (int h = 0; h < houses.length; h++) {
+				timePasses(h);
+			}
+			// Listeners need objects holding the current state
+			if (isListenerDue(i + 1)) {
+				synchroniseObjects();
+				notifyListeners(houseList, i + 1);
+			}
+			// Wait for next unit time to slow down simulation
+			clock.awaitTick(i + 1);
+		}
+
+		// Leave objects holding the final state
+		synchroniseObjects();
+	}
+
+	/**
+	 * Bring all Appliance and Meter objects up to date with the compiled arrays.
+	 */
+	private void synchroniseObjects() {
+		for (int h = 0; h < houses.length; h++) {
+			flushMeters(h);
+			writeObjects(h);
+		}
+	}
+
+	/**
+	 * Flatten houses into the engine arrays.
+	 * @param  houseList Houses to compile
+	 */
+	private void compile(ArrayList<House> houseList) {
+		houses = houseList.toArray(new House[houseList.size()]);
+		billed = new boolean[houses.length];
+		for (int h = 0; h < houses.length; h++) {
+			billed[h] = houses[h].isBilled();
+		}
+
+		// Collect appliances of every house in order
+		ArrayList<Appliance> applianceList = new ArrayList<Appliance>();
+		firstAppliance = new int[houses.length + 1];
+		for (int h = 0; h < houses.length; h++) {
+			firstAppliance[h] = applianceList.size();
+			Iterator<Appliance> itrAppliances = houses[h].getAppliancesIterator();
+			while (itrAppliances.hasNext()) {
+				applianceList.add(itrAppliances.next());
+			}
+		}
+		firstAppliance[houses.length] = applianceList.size();
+
+		// Create appliance arrays
+		int count = applianceList.size();
+		appliances = applianceList.toArray(new Appliance[count]);
+		usage = new int[TYPES.length][count];
+		slotIndex = new int[TYPES.length][count];
+		timeOn = new int[count];
+		currentTimeOn = new int[count];
+		stateBits = new long[(count + 63) / 64];
+		objectBits = new long[(count + 63) / 64];
+
+		// Fill appliance arrays, numbering meters and the slots of each house as they are found
+		IdentityHashMap<Meter, Integer> meterIndexes = new IdentityHashMap<Meter, Integer>();
+		ArrayList<Meter> meterList = new ArrayList<Meter>();
+		ArrayList<Integer> slotMeters = new ArrayList<Integer>(); // meter index of each slot
+		ArrayList<Integer> slotHouseList = new ArrayList<Integer>();
+		for (int h = 0; h < houses.length; h++) {
+			HashMap<Integer, Integer> houseSlots = new HashMap<Integer, Integer>(); // slot of each meter index
+			for (int a = firstAppliance[h]; a < firstAppliance[h + 1]; a++) {
+				Appliance appliance = appliances[a];
+				timeOn[a] = appliance.getTimeOn();
+				// Behaviour that cannot be compiled stays in the object model
+				if (appliance.isStochastic() || !appliance.hasMetersForUsage()) {
+					setBit(objectBits, a, true);
+				}
+				for (UtilityType type : TYPES) {
+					int amount = appliance.getUsageFromType(type);
+					usage[type.ordinal()][a] = amount;
+					slotIndex[type.ordinal()][a] = -1;
+					if (amount != 0 && !getBit(objectBits, a)) {
+						int m = getMeterIndex(appliance.getMeterOfType(type), meterIndexes, meterList);
+						Integer slot = houseSlots.get(m);
+						if (slot == null) {
+							slot = slotMeters.size();
+							houseSlots.put(m, slot);
+							slotMeters.add(m);
+							slotHouseList.add(h);
+						}
+						slotIndex[type.ordinal()][a] = slot;
+					}
+				}
+			}
+			readObjects(h);
+		}
+
+		// Create meter and slot arrays
+		meters = meterList.toArray(new Meter[meterList.size()]);
+		int slotCount = slotMeters.size();
+		slotHouses = new int[slotCount];
+		consumed = new long[slotCount];
+		generated = new long[slotCount];
+		int[] meterSlotCounts = new int[meters.length];
+		for (int s = 0; s < slotCount; s++) {
+			slotHouses[s] = slotHouseList.get(s);
+			meterSlotCounts[slotMeters.get(s)]++;
+		}
+		meterSlots = new int[meters.length][];
+		for (int m = 0; m < meters.length; m++) {
+			meterSlots[m] = new int[meterSlotCounts[m]];
+			meterSlotCounts[m] = 0;
+		}
+		for (int s = 0; s < slotCount; s++) {
+			int m = slotMeters.get(s);
+			meterSlots[m][meterSlotCounts[m]++] = s;
+		}
+
+		// Find the meters each house must flush before reporting
+		houseMeters = new int[houses.length][];
+		for (int h = 0; h < houses.length; h++) {
+			houseMeters[h] = getHouseMeters(h, meterIndexes, slotMeters);
+		}
+	}
+
+	/**
+	 * Get the index of a meter, numbering it if not seen before.
+	 * @param  meter Meter to get index of
+	 * @param  meterIndexes Indexes of meters seen so far
+	 * @param  meterList Meters seen so far in index order
+	 * @return  Index of meter
+	 */
+	private static int getMeterIndex(Meter meter, IdentityHashMap<Meter, Integer> meterIndexes, ArrayList<Meter> meterList) {
+		Integer index = meterIndexes.get(meter);
+		if (index == null) {
+			index = meterList.size();
+			meterIndexes.put(meter, index);
+			meterList.add(meter);
+		}
+		return index;
+	}
+
+	/**
+	 * Get the indexes of meters used by a house's appliances or connected to the house.
+	 * @param  h Index of house
+	 * @param  meterIndexes Indexes of all compiled meters
+	 * @param  slotMeters Meter index of each slot
+	 * @return  Distinct meter indexes
+	 */
+	private int[] getHouseMeters(int h, IdentityHashMap<Meter, Integer> meterIndexes, ArrayList<Integer> slotMeters) {
+		ArrayList<Integer> indexes = new ArrayList<Integer>();
+		for (int a = firstAppliance[h]; a < firstAppliance[h + 1]; a++) {
+			for (int t = 0; t < TYPES.length; t++) {
+				if (slotIndex[t][a] >= 0 && !indexes.contains(slotMeters.get(slotIndex[t][a]))) {
+					indexes.add(slotMeters.get(slotIndex[t][a]));
+				}
+			}
+		}
+		Iterator<Meter> itrMeters = houses[h].getMetersIterator();
+		while (itrMeters.hasNext()) {
+			Integer index = meterIndexes.get(itrMeters.next());
+			if (index != null && !indexes.contains(index)) {
+				indexes.add(index);
+			}
+		}
+		int[] houseIndexes = new int[indexes.size()];
+		for (int i = 0; i < houseIndexes.length; i++) {
+			houseIndexes[i] = indexes.get(i);
+		}
+		return houseIndexes;
+	}
+
+	/**
+	 * Simulate a unit time passing in a house, as House.timePasses does.
+	 * @param  h Index of house
+	 */
+	private void timePasses(int h) {
+		House house = houses[h];
+
+		// Appliances
+		int end = firstAppliance[h + 1];
+		for (int a = firstAppliance[h]; a < end; a++) {
+			if (getBit(objectBits, a)) {
+				appliances[a].timePasses();
+			}
+			else if (getBit(stateBits, a)) {
+				incMeters(a);
+				// Check if appliance should be turned off
+				if (++currentTimeOn[a] == timeOn[a]) {
+					setBit(stateBits, a, false);
+					currentTimeOn[a] = 0;
+					Logger.message(String.format("'%s' duty cycle has completed and has turned off automatically",
+							appliances[a].getType()));
+				}
+			}
+		}
+
+		// People only act when a task is due, they then need up to date appliance objects
+		if (house.isTaskDue()) {
+			writeObjects(h);
+			house.stepPeople();
+			readObjects(h);
+		}
+
+		// Meters must be up to date before a day report or a change of rate
+		if ((house.getTime() + 1) % House.DAY_LENGTH == 0 || (billed[h] && house.getTimeUntilRateChange() == 1)) {
+			flushMeters(h);
+		}
+		house.endTime(1);
+	}
+
+	/**
+	 * Accumulate a unit time of usage of an appliance that is on.
+	 * @param  a Index of appliance
+	 */
+	private void incMeters(int a) {
+		for (int t = 0; t < TYPES.length; t++) {
+			int amount = usage[t][a];
+			// [Negative values imply generated]
+			if (amount > 0) {
+				consumed[slotIndex[t][a]] += amount;
+			}
+			else if (amount < 0) {
+				generated[slotIndex[t][a]] -= amount;
+			}
+		}
+	}
+
+	/**
+	 * Add accumulated increments to the Meters used by a house.
+	 * Other houses' increments to a shared meter are added too, each priced at the time of the
+	 * house that made them; a house flushes before its rate changes, so that rate is still current.
+	 * @param  h Index of house
+	 */
+	private void flushMeters(int h) {
+		for (int m : houseMeters[h]) {
+			for (int s : meterSlots[m]) {
+				if (consumed[s] != 0) {
+					meters[m].incrementConsumed((int) consumed[s], houses[slotHouses[s]].getTime());
+					consumed[s] = 0;
+				}
+				if (generated[s] != 0) {
+					meters[m].incrementGenerated((int) generated[s]);
+					generated[s] = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copy compiled appliance state of a house to the Appliance objects.
+	 * @param  h Index of house
+	 */
+	private void writeObjects(int h) {
+		for (int a = firstAppliance[h]; a < firstAppliance[h + 1]; a++) {
+			if (!getBit(objectBits, a)) {
+				appliances[a].restoreState(getBit(stateBits, a), currentTimeOn[a]);
+			}
+		}
+	}
+
+	/**
+	 * Copy appliance state of a house from the Appliance objects to the compiled arrays.
+	 * @param  h Index of house
+	 */
+	private void readObjects(int h) {
+		for (int a = firstAppliance[h]; a < firstAppliance[h + 1]; a++) {
+			if (!getBit(objectBits, a)) {
+				setBit(stateBits, a, appliances[a].getCurrentState());
+				currentTimeOn[a] = appliances[a].getCurrentTimeOn();
+			}
+		}
+	}
+
+	/**
+	 * @param  bits Bit set
+	 * @param  i Index of bit
+	 * @return  True if bit is set
+	 */
+	private static boolean getBit(long[] bits, int i) {
+		return (bits[i >>> 6] & (1L << i)) != 0;
+	}
+
+	/**
+	 * @param  bits Bit set
+	 * @param  i Index of bit
+	 * @param  value Value to set bit to
+	 */
+	private static void setBit(long[] bits, int i, boolean value) {
+		if (value) {
+			bits[i >>> 6] |= (1L << i);
+		}
+		else {
+			bits[i >>> 6] &= ~(1L << i);
+		}
+	}
+
+}
@@ -0,0 +1,394 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * Class of MeterSink that keeps every reading in memory, compressed.
+ * Each meter has a bit stream of consumed readings and one of generated readings. A reading is
+ * stored as its delta-of-delta (the change in how much it changed by), as most readings repeat
+ * the last (an appliance off or on at a constant rate) and most others step by a small amount.
+ * Unit times are always consecutive so are not stored.
+ *
+ * A delta-of-delta is written as a prefix then a zig-zag encoded payload, least significant bit first:
+ *   0    - zero (delta unchanged)    1 bit
+ *   10   - -8 to 7                   2 + 4 bits
+ *   110  - -2048 to 2047             3 + 12 bits
+ *   1110 - -524288 to 524287         4 + 20 bits
+ *   1111 - any                       4 + 64 bits
+ * Streams are split into blocks of a day, each decoded from its start, so a reading is found by
+ * decoding at most a day of the stream.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class CompressedMeterHistory extends MeterSink {
+	// Unit times in a block
+	private final static int BLOCK_LENGTH = House.DAY_LENGTH;
+	// Payload bits following a prefix of each number of ones
+	private final static int[] PAYLOAD_BITS = {0, 4, 12, 20, 64};
+	// Ones of the longest prefix, which has no terminating zero
+	private final static int MAX_PREFIX_ONES = 4;
+	// Maximum bits written for a reading
+	private final static int MAX_READING_BITS = 4 + 64;
+	// Words given to a stream when it first grows
+	private final static int INITIAL_WORDS = 4;
+
+	private MeterSet meters;
+	// Bit streams, consumed of meter m at 2m and generated at 2m + 1
+	private long[][] streams = new long[0][];
+	private int[] streamBits = new int[0];
+	// Encoder state of each stream
+	private long[] lastValues = new long[0];
+	private long[] lastDeltas = new long[0];
+	// Bit offset of the start of each block, indexed by block then stream
+	private int[][] blockOffsets = new int[INITIAL_WORDS][];
+	private int tickCount = 0;
+
+	@Override
+	public void start(MeterSet meters) {
+		this.meters = meters;
+		int streamCount = 2 * meters.size();
+		streams = new long[streamCount][INITIAL_WORDS];
+		streamBits = new int[streamCount];
+		lastValues = new long[streamCount];
+		lastDeltas = new long[streamCount];
+	}
+
+	@Override
+	public void record(int tick, int[] consumed, int[] generated) {
+		if (tickCount % BLOCK_LENGTH == 0) {
+			startBlock(tickCount / BLOCK_LENGTH);
+		}
+		for (int m = 0; m < consumed.length; m++) {
+			append(2 * m, consumed[m]);
+			append(2 * m + 1, generated[m]);
+		}
+		tickCount++;
+	}
+
+	/**
+	 * Trim streams to the words used, once no more readings will be recorded.
+	 */
+	@Override
+	public void finish() {
+		for (int c = 0; c < streams.length; c++) {
+			// Keep a spare word so reads never run past the end
+			streams[c] = Arrays.copyOf(streams[c], (streamBits[c] >>> 6) + 2);
+		}
+	}
+
+	/**
+	 * Mark the start of a block in every stream, decoding restarts from here.
+	 * @param  block Index of block
+	 */
+	private void startBlock(int block) {
+		if (block == blockOffsets.length) {
+			blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+		}
+		blockOffsets[block] = Arrays.copyOf(streamBits, streamBits.length);
+		Arrays.fill(lastValues, 0);
+		Arrays.fill(lastDeltas, 0);
+	}
+
+	/**
+	 * Add a reading to the end of a stream.
+	 * @param  c Index of stream
+	 * @param  value Reading
+	 */
+	private void append(int c, int value) {
+		long delta = value - lastValues[c];
+		long deltaOfDelta = delta - lastDeltas[c];
+		lastValues[c] = value;
+		lastDeltas[c] = delta;
+
+		// Make sure the longest encoding fits, with a spare word
+		long[] stream = streams[c];
+		int pos = streamBits[c];
+		if (((pos + MAX_READING_BITS) >>> 6) + 1 >= stream.length) {
+			stream = Arrays.copyOf(stream, Math.max(stream.length * 2, ((pos + MAX_READING_BITS) >>> 6) + 2));
+			streams[c] = stream;
+		}
+
+		if (deltaOfDelta == 0) {
+			streamBits[c] = pos + 1; // prefix 0, words are zeroed
+			return;
+		}
+		long zigZag = (deltaOfDelta << 1) ^ (deltaOfDelta >> 63);
+		int ones = 1;
+		while (ones < MAX_PREFIX_ONES && (zigZag >>> PAYLOAD_BITS[ones]) != 0) {
+			ones++;
+		}
+		int prefixLength = (ones < MAX_PREFIX_ONES) ? ones + 1 : ones;
+		long prefix = (1L << ones) - 1;
+		if (prefixLength + PAYLOAD_BITS[ones] <= 64) {
+			writeBits(stream, pos, prefix | (zigZag << prefixLength), prefixLength + PAYLOAD_BITS[ones]);
+		}
+		else {
+			writeBits(stream, pos, prefix, prefixLength);
+			writeBits(stream, pos + prefixLength, zigZag, PAYLOAD_BITS[ones]);
+		}
+		streamBits[c] = pos + prefixLength + PAYLOAD_BITS[ones];
+	}
+
+	/**
+	 * OR bits into a stream, which must be zero where written.
+	 * @param  stream Words of stream
+	 * @param  pos Bit offset to write at
+	 * @param  value Bits to write, least significant first, zero above count
+	 * @param  count Number of bits [1 - 64]
+	 */
+	private static void writeBits(long[] stream, int pos, long value, int count) {
+		int word = pos >>> 6;
+		int bit = pos & 63;
+		stream[word] |= value << bit;
+		if (bit + count > 64) {
+			stream[word + 1] |= value >>> (64 - bit);
+		}
+	}
+
+	/**
+	 * @param  stream Words of stream
+	 * @param  pos Bit offset to read at
+	 * @param  count Number of bits [1 - 64]
+	 * @return  Bits read, least significant first
+	 */
+	private static long readBits(long[] stream, int pos, int count) {
+		int word = pos >>> 6;
+		int bit = pos & 63;
+		long value = stream[word] >>> bit;
+		if (bit + count > 64) {
+			value |= stream[word + 1] << (64 - bit);
+		}
+		return (count == 64) ? value : value & ((1L << count) - 1);
+	}
+
+	/**
+	 * @return  Meters that readings are indexed by, null if recording has not started
+	 */
+	public MeterSet getMeters() {
+		return meters;
+	}
+
+	/**
+	 * @return  Number of unit times recorded
+	 */
+	public int getTickCount() {
+		return tickCount;
+	}
+
+	/**
+	 * @return  Bytes used to hold the readings, including block offsets
+	 */
+	public long getCompressedBytes() {
+		long bytes = 0;
+		for (long[] stream : streams) {
+			bytes += 8L * stream.length;
+		}
+		int blocks = (tickCount + BLOCK_LENGTH - 1) / BLOCK_LENGTH;
+		return bytes + 4L * blocks * streams.length;
+	}
+
+	/**
+	 * @return  Mean bytes used per reading (consumed and generated are a reading each)
+	 */
+	public double getBytesPerReading() {
+		long readings = (long) tickCount * streams.length;
+		return (readings == 0) ? 0 : (double) getCompressedBytes() / readings;
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @param  tick Unit time
+	 * @return  Amount consumed by meter during unit time
+	 */
+	public int getConsumed(int m, int tick) {
+		checkRange(tick, tick + 1);
+		return new Cursor(2 * m, tick).next();
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @param  tick Unit time
+	 * @return  Amount generated by meter during unit time
+	 */
+	public int getGenerated(int m, int tick) {
+		checkRange(tick, tick + 1);
+		return new Cursor(2 * m + 1, tick).next();
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @param  from First unit time (inclusive)
+	 * @param  to Last unit time (exclusive)
+	 * @return  Total consumed by meter during range
+	 */
+	public long sumConsumed(int m, int from, int to) {
+		return sum(2 * m, from, to);
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @param  from First unit time (inclusive)
+	 * @param  to Last unit time (exclusive)
+	 * @return  Total generated by meter during range
+	 */
+	public long sumGenerated(int m, int from, int to) {
+		return sum(2 * m + 1, from, to);
+	}
+
+	/**
+	 * Decode the amount consumed by a meter each unit time of a range, e.g. for a load curve.
+	 * @param  m Index of meter
+	 * @param  from First unit time (inclusive)
+	 * @param  to Last unit time (exclusive)
+	 * @param  dest Array to decode to
+	 * @param  offset Index in dest of the first unit time
+	 */
+	public void copyConsumed(int m, int from, int to, int[] dest, int offset) {
+		copy(2 * m, from, to, dest, offset);
+	}
+
+	/**
+	 * Decode the amount generated by a meter each unit time of a range.
+	 * @param  m Index of meter
+	 * @param  from First unit time (inclusive)
+	 * @param  to Last unit time (exclusive)
+	 * @param  dest Array to decode to
+	 * @param  offset Index in dest of the first unit time
+	 */
+	public void copyGenerated(int m, int from, int to, int[] dest, int offset) {
+		copy(2 * m + 1, from, to, dest, offset);
+	}
+
+	/**
+	 * Check a range of unit times is held.
+	 * @param  from First unit time (inclusive)
+	 * @param  to Last unit time (exclusive)
+	 */
+	private void checkRange(int from, int to) {
+		if (from < 0 || to > tickCount || from > to) {
+			Logger.error(String.format("Unit times %d to %d are not held, history holds 0 to %d",
+					from, to, tickCount));
+		}
+	}
+
+	/**
+	 * @param  c Index of stream
+	 * @param  from First unit time (inclusive)
+	 * @param  to Last unit time (exclusive)
+	 * @return  Sum of stream over range
+	 */
+	private long sum(int c, int from, int to) {
+		checkRange(from, to);
+		if (from == to) {
+			return 0;
+		}
+		Cursor cursor = new Cursor(c, from);
+		long total = 0;
+		for (int tick = from; tick < to; tick++) {
+			total += cursor.next();
+		}
+		return total;
+	}
+
+	/**
+	 * @param  c Index of stream
+	 * @param  from First unit time (inclusive)
+	 * @param  to Last unit time (exclusive)
+	 * @param  dest Array to decode to
+	 * @param  offset Index in dest of the first unit time
+	 */
+	private void copy(int c, int from, int to, int[] dest, int offset) {
+		checkRange(from, to);
+		if (from == to) {
+			return;
+		}
+		Cursor cursor = new Cursor(c, from);
+		for (int i = offset; i < offset + (to - from); i++) {
+			dest[i] = cursor.next();
+		}
+	}
+
+	/**
+	 * Write every unit time as CSV, a row per meter per unit time.
+	 * @param  filename Filename to write to
+	 */
+	public void writeCsv(String filename) {
+		try {
+			PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(filename)));
+			try {
+				writer.println("tick,house,meter,consumed,generated");
+				Cursor[] cursors = new Cursor[streams.length];
+				for (int c = 0; c < streams.length && tickCount > 0; c++) {
+					cursors[c] = new Cursor(c, 0);
+				}
+				for (int tick = 0; tick < tickCount; tick++) {
+					for (int m = 0; m < meters.size(); m++) {
+						writer.printf("%d,%s,%s,%d,%d%n", tick, meters.getHouseName(m), meters.getType(m),
+								cursors[2 * m].next(), cursors[2 * m + 1].next());
+					}
+				}
+			}
+			finally {
+				writer.close();
+			}
+		}
+		catch (IOException e) {
+			Logger.error(String.format("Meter history '%s' could not be written\nCaught exception: %s", filename, e));
+		}
+	}
+
+	/**
+	 * Class that decodes the readings of a stream in order.
+	 */
+	private class Cursor {
+		private int c;
+		private int tick; // unit time of the next reading
+		private int pos;
+		private long value;
+		private long delta;
+
+		/**
+		 * Constructor for Cursor.
+		 * @param  c Index of stream
+		 * @param  tick Unit time of the first reading to decode [0 - tickCount-1]
+		 */
+		Cursor(int c, int tick) {
+			this.c = c;
+			// Decode from the start of the block up to the unit time
+			this.tick = tick - (tick % BLOCK_LENGTH);
+			while (this.tick < tick) {
+				next();
+			}
+		}
+
+		/**
+		 * @return  Next reading of the stream
+		 */
+		int next() {
+			long[] stream = streams[c];
+			if (tick % BLOCK_LENGTH == 0) {
+				pos = blockOffsets[tick / BLOCK_LENGTH][c];
+				value = 0;
+				delta = 0;
+			}
+			// Count the ones of the prefix, at most 4
+			int ones = Long.numberOfTrailingZeros(~readBits(stream, pos, MAX_PREFIX_ONES));
+			if (ones == 0) {
+				pos++;
+			}
+			else {
+				pos += (ones < MAX_PREFIX_ONES) ? ones + 1 : ones;
+				long zigZag = readBits(stream, pos, PAYLOAD_BITS[ones]);
+				pos += PAYLOAD_BITS[ones];
+				delta += (zigZag >>> 1) ^ -(zigZag & 1);
+			}
+			value += delta;
+			tick++;
+			return (int) value;
+		}
+	}
+
+}
@@ -2,6 +2,7 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Type;
@@ -29,6 +30,7 @@ import java.util.regex.Pattern;
  * - An existing OBJECT REFERENCE may be used as a COMMAND input e.g. [VAR_NAME]->Test:
  * - Multiple HOUSES can be created, HOUSES do not share CLASSES unless explicitly defined with OBJECT REFERENCES
  * - Comments (//) and blank lines are ignored
+ * - A filename of '-' reads the configuration from standard input
  * 
  * Order Rules:
  * - A HOUSE must be the first declaration
@@ -36,6 +38,8 @@ import java.util.regex.Pattern;
  * - A METER will attach to any APPLIANCES already in the HOUSE
  * - A METER will attach to any APPLIANCE newly added to the HOUSE
  * - TASKS are implicitly assigned to the last declared PERSON in the HOUSE
+ * - A GRID declaration places the last declared HOUSE in the grid hierarchy, from the top level
+ *   down e.g. Grid:"Substation 1","Feeder 2","Street 3" (see GridAggregator)
  * - OBJECT REFERENCES must be assigned before they are used
  * 
  * Argument Rules:
@@ -52,10 +56,13 @@ import java.util.regex.Pattern;
  * applications. 
  * Current objects which can be stored include: 
  * - Person
+ * - Meter
  * Functionality:
  * - Person can be retrieved for assignment directly to a task, if another person is declared before task declaration
  * - Person can be retrieved for assignment directly to a task in another house. Person reference is implicitly added
  *   to the house and task is carried out in the house.
+ * - Meter can be retrieved to connect it to another house e.g. [Flats]->ElectricMeter: so houses of a building
+ *   share one meter. The houses sharing it are then simulated together (see HouseGroup).
  * 
  * ---> See example .txt files for example usage
  * 
@@ -63,6 +70,11 @@ import java.util.regex.Pattern;
  * @author dsj1n15
  */
 public class ConfigurationReader {
+	// Filename used when none is given
+	static final String DEFAULT_FILENAME = "myHouse.txt";
+	// Filename that reads from standard input
+	static final String STDIN_FILENAME = "-";
+
 	// --- Reader Rules	
 	// Configuration commands that can be called from configuration file separated by command type
 	// Other configuration entries will be assumed as Tasks
@@ -70,6 +82,7 @@ public class ConfigurationReader {
 	private static final String[] CREATE_METER_CMDS = UtilityType.asMeterStringArray();
 	private static final String[] CREATE_APPLIANCE_CMDS = ApplianceType.asClassStringArray();
 	private static final String CREATE_PERSON_CMD = "Person";
+	private static final String GRID_CMD = "Grid";
 	
 	// Explicit Class names not defined as a command
 	private static final String CHILD_CLASS_NAME = "Child";
@@ -104,7 +117,7 @@ public class ConfigurationReader {
 	 * No arguments, use default filename.
 	 */
 	public ConfigurationReader() {
-		this("myHouse.txt");
+		this(DEFAULT_FILENAME);
 	}
 	
 	/**
@@ -129,8 +142,14 @@ public class ConfigurationReader {
 	 */
 	public void openReader() {
 		try {
-			// Create BufferedReader using FileReader
-			fileReader = new BufferedReader(new FileReader(filename));
+			if (filename.equals(STDIN_FILENAME)) {
+				// Create BufferedReader reading standard input
+				fileReader = new BufferedReader(new InputStreamReader(System.in));
+			}
+			else {
+				// Create BufferedReader using FileReader
+				fileReader = new BufferedReader(new FileReader(filename));
+			}
 		} 
 		catch (FileNotFoundException e) {
 			// Specific exception case 
@@ -155,7 +174,7 @@ public class ConfigurationReader {
 	
 	/**
 	 * Read next line of file in fileReader.
-	 * @return  Line of file
+	 * @return  Line of file, null at the end of the file
 	 */
 	private String getLine() {
 		try {
@@ -165,25 +184,11 @@ public class ConfigurationReader {
 		catch (Exception e) {
 			// Note: Type of caught exception does not matter as we only
 			// need to know when line read fails
+			Logger.error("Line could not be read on house configuration");
 			return null;
 		}
 	}
 	
-	/**
-	 * Return ready state of fileReader.
-	 * @return  Ready state
-	 */
-	private boolean fileReady() {
-		try {
-			return fileReader.ready();
-		} 
-		catch (Exception e) {
-			// Note: Type of caught exception does not matter as we only 
-			// need to know when file not ready
-			return false;
-		}
-	}
-	
 	/**
 	 * Create and set up a House defined by the configuration file.
 	 * @return  ArrayList of House, returns empty ArrayList if configuration read error
@@ -198,14 +203,10 @@ public class ConfigurationReader {
 		// Stores a created object for later use, addressable via string reference
 		HashMap<String, Object> objRefs = new HashMap<String, Object>();
 
-		// Loop through all lines of file
-		while (fileReady()) {
-			// Get next line
-			String line = getLine();
-			// Handle line read errors
-			if (line == null) {
-				Logger.error("Line read as null on house configuration");
-			}
+		// Loop through all lines of file, until the end is reached
+		// [A pipe may not be ready before it has ended so read until null]
+		String line;
+		while ((line = getLine()) != null) {
 			
 			// Ignore line if it is a comment or blank
 			if (line.isEmpty() || line.substring(0, COMMENT_LABEL.length()).equals(COMMENT_LABEL)) {
@@ -238,12 +239,36 @@ public class ConfigurationReader {
 			else if (lastHouse != null) {
 				// Handle addition of meters
 				if (isStringInList(type, CREATE_METER_CMDS)) {
-					lastHouse.addMeter(getMeter(type, args));
+					if (line.contains(GET_LABEL)) {
+						// Share a stored meter, its houses are then simulated together (see HouseGroup)
+						objRef = getReference(objRefs, strRef);
+						if (!objRef.getClass().getSimpleName().equals(type)) {
+							Logger.error(String.format("Object is not of type '%s'", type));
+						}
+						if (args.length != 0) {
+							Logger.error(String.format("Retrieved '%s' cannot take arguments", type));
+						}
+						lastHouse.addMeter((Meter) objRef);
+					}
+					else {
+						Meter meter = getMeter(type, args);
+						lastHouse.addMeter(meter);
+						// Keep track of created object for storage
+						objRef = meter;
+					}
 				}
 				// Handle addition of appliances
 				else if (isStringInList(type, CREATE_APPLIANCE_CMDS)) {
 					lastHouse.addAppliance(getAppliance(type, args));
 				}
+				// Handle placement of house in grid
+				else if (type.equals(GRID_CMD)) {
+					String[] gridPath = new String[args.length];
+					for (int i = 0; i < args.length; i++) {
+						gridPath[i] = String.valueOf(args[i]);
+					}
+					lastHouse.setGridPath(gridPath);
+				}
 				// Handle addition of people
 				else if (type.equals(CREATE_PERSON_CMD)) {
 					lastPerson = (Person) getPerson(args);
@@ -313,6 +338,42 @@ public class ConfigurationReader {
 		return houses;
 	}
 	
+	/**
+	 * Get the command of a line without creating anything, e.g. to split a configuration.
+	 * @param  line Line of configuration
+	 * @return  Command of line, null if the line is a comment, blank or not valid
+	 */
+	static String getLineCommand(String line) {
+		if (line.isEmpty() || line.startsWith(COMMENT_LABEL) || !isValidLine(line)) {
+			return null;
+		}
+		return getTypeString(getClassString(line));
+	}
+
+	/**
+	 * @param  line Line of configuration
+	 * @return  True if the line creates a house
+	 */
+	static boolean isHouseLine(String line) {
+		return CREATE_HOUSE_CMD.equals(getLineCommand(line));
+	}
+
+	/**
+	 * @param  line Line of configuration
+	 * @return  Name of object reference assigned by line, null if none
+	 */
+	static String getAssignedReference(String line) {
+		return (getLineCommand(line) != null && line.contains(ASSIGN_LABEL)) ? getReferenceString(line) : null;
+	}
+
+	/**
+	 * @param  line Line of configuration
+	 * @return  Name of object reference retrieved by line, null if none
+	 */
+	static String getRetrievedReference(String line) {
+		return (getLineCommand(line) != null && line.contains(GET_LABEL)) ? getReferenceString(line) : null;
+	}
+
 	/**
 	 * Validate configuration line is a valid command
 	 * @param  line Line to search
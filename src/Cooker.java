@@ -18,7 +18,7 @@ public abstract class Cooker extends Appliance {
 		
 		// Define Appliance tasks on object instantiation
 		// An exception is thrown if the task method does not exist
-		addTask(new ApplianceTask("Cook", getMethod("turnOn"), true, false));
+		addTask(new ApplianceTask("Cook", Appliance::turnOn, true, false));
 	}
 
 }
\ No newline at end of file
@@ -44,7 +44,7 @@ public class Dishwasher extends Appliance {
 
 		// Define Appliance tasks on object instantiation
 		// An exception is thrown if the task method does not exist
-		addTask(new ApplianceTask("WashDishes", getMethod("turnOn"), false, false));
+		addTask(new ApplianceTask("WashDishes", Appliance::turnOn, false, false));
 	}
 
 	@Override
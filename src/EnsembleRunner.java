@@ -0,0 +1,310 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class that runs many copies of a simulation with different seeds and summarises their day reports.
+ * Houses are read from configuration once and copied for each run (see HouseCopier), runs are
+ * then simulated in parallel with their output discarded. Each run steps its houses a unit time
+ * at a time (see SequentialEngine) as fast as possible.
+ *
+ * For each day report of each house, the mean, standard deviation and percentiles
+ * of every meter column over all runs are output, giving the spread of stochastic 
+ * behaviour such as WindTurbine generation.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class EnsembleRunner {
+	// Percentiles output for each column
+	private final static int[] PERCENTILES = {5, 50, 95};
+
+	// Ensemble properties
+	private ArrayList<House> houses;
+	private int runCount;
+	private int threadCount;
+	private long seed;
+
+	/**
+	 * Constructor for EnsembleRunner.
+	 * @param  houses Houses to copy for each run, left unchanged
+	 * @param  runCount Number of runs [> 0]
+	 * @param  threadCount Maximum number of runs simulated at once [> 0]
+	 * @param  seed Seed that the seed of each run is derived from
+	 */
+	public EnsembleRunner(ArrayList<House> houses, int runCount, int threadCount, long seed) {
+		if (runCount < 1) {
+			Logger.error("Ensemble run count must be positive");
+		}
+		if (threadCount < 1) {
+			Logger.error("Thread count must be positive");
+		}
+		this.houses = houses;
+		this.runCount = runCount;
+		this.threadCount = threadCount;
+		this.seed = seed;
+	}
+
+	/**
+	 * Simulate every run and output a summary of their day reports.
+	 * @param  simLength Unit time to run each simulation for
+	 */
+	public void run(int simLength) {
+		ArrayList<Callable<ReportRecorder>> runs = new ArrayList<Callable<ReportRecorder>>(runCount);
+		for (int r = 0; r < runCount; r++) {
+			runs.add(new EnsembleRun(RandomStream.deriveSeed(seed, r), simLength));
+		}
+
+		// Simulate runs, keeping their reports in run order
+		ArrayList<ReportRecorder> recorders = new ArrayList<ReportRecorder>(runCount);
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threadCount, runCount));
+		try {
+			for (Future<ReportRecorder> future : pool.invokeAll(runs)) {
+				recorders.add(getResult(future));
+			}
+		}
+		catch (InterruptedException e) {
+			Logger.error("Ensemble interrupted whilst waiting for runs");
+		}
+		finally {
+			pool.shutdownNow();
+		}
+
+		// Summarise each report of each house
+		for (int h = 0; h < houses.size(); h++) {
+			int reportCount = recorders.get(0).reports.get(h).size();
+			for (int i = 0; i < reportCount; i++) {
+				outputSummary(h, i, recorders);
+			}
+		}
+	}
+
+	/**
+	 * Get the reports of a finished run, passing on the failure of a run.
+	 * @param  future Future of run
+	 * @return  Reports of run
+	 * @throws  InterruptedException If interrupted whilst waiting
+	 */
+	private static ReportRecorder getResult(Future<ReportRecorder> future) throws InterruptedException {
+		try {
+			return future.get();
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			Logger.error(String.format("Ensemble run failed unexpectedly\nCaught exception: %s", e.getCause()));
+			return null;
+		}
+	}
+
+	/**
+	 * Output a summary of a day report of a house over all runs.
+	 * @param  h Index of house
+	 * @param  i Index of report
+	 * @param  recorders Reports of every run
+	 */
+	private void outputSummary(int h, int i, List<ReportRecorder> recorders) {
+		House house = houses.get(h);
+		ArrayList<String> meterTypes = new ArrayList<String>();
+		Iterator<Meter> itrMeters = house.getMetersIterator();
+		while (itrMeters.hasNext()) {
+			meterTypes.add(itrMeters.next().getType());
+		}
+
+		// Collect each column of the report over all runs
+		int columnCount = meterTypes.size() * 2; // consumed then generated of each meter
+		double[][] columns = new double[columnCount][recorders.size()];
+		for (int r = 0; r < recorders.size(); r++) {
+			int[] values = recorders.get(r).reports.get(h).get(i);
+			for (int c = 0; c < columnCount; c++) {
+				columns[c][r] = values[c];
+			}
+		}
+		int day = recorders.get(0).days.get(h).get(i);
+
+		// Define spacing of columns
+		String columnFormat = "%12s ";
+		ArrayList<StringBuilder> reportLines = new ArrayList<StringBuilder>();
+
+		// Create headings
+		StringBuilder heading = new StringBuilder(256);
+		heading.append(String.format(columnFormat, "---"));
+		for (String meterType : meterTypes) {
+			heading.append(String.format(columnFormat, meterType));
+		}
+		reportLines.add(new StringBuilder(String.format("%s - Day %d - %d runs", house.getName(), day, recorders.size())));
+		reportLines.add(heading);
+
+		// Create rows of statistics for consumed then generated
+		String[] rowHeadings = {"{Consumed}", "{Generated}"};
+		for (int row = 0; row < rowHeadings.length; row++) {
+			reportLines.add(new StringBuilder(String.format(columnFormat, rowHeadings[row])));
+			StringBuilder mean = new StringBuilder(String.format(columnFormat, "mean"));
+			StringBuilder stddev = new StringBuilder(String.format(columnFormat, "stddev"));
+			StringBuilder[] percentiles = new StringBuilder[PERCENTILES.length];
+			for (int p = 0; p < PERCENTILES.length; p++) {
+				percentiles[p] = new StringBuilder(String.format(columnFormat, "p" + PERCENTILES[p]));
+			}
+			for (int m = 0; m < meterTypes.size(); m++) {
+				double[] column = columns[row * meterTypes.size() + m];
+				mean.append(String.format(columnFormat, String.format("%.2f", getMean(column))));
+				stddev.append(String.format(columnFormat, String.format("%.2f", getStandardDeviation(column))));
+				double[] sorted = column.clone();
+				Arrays.sort(sorted);
+				for (int p = 0; p < PERCENTILES.length; p++) {
+					percentiles[p].append(String.format(columnFormat, String.format("%.0f", getPercentile(sorted, PERCENTILES[p]))));
+				}
+			}
+			reportLines.add(mean);
+			reportLines.add(stddev);
+			reportLines.addAll(Arrays.asList(percentiles));
+		}
+
+		// Wrap report as House does
+		StringBuilder wrapper = new StringBuilder(256);
+		for (int c = 0; c < heading.length() - 1; c++) {
+			wrapper.append('*');
+		}
+		Logger.message(wrapper.toString());
+		for (StringBuilder line : reportLines) {
+			Logger.message(line.toString());
+		}
+		Logger.message(wrapper.toString());
+	}
+
+	/**
+	 * @param  values Values [length > 0]
+	 * @return  Mean of values
+	 */
+	private static double getMean(double[] values) {
+		double sum = 0;
+		for (double value : values) {
+			sum += value;
+		}
+		return sum / values.length;
+	}
+
+	/**
+	 * @param  values Values [length > 0]
+	 * @return  Sample standard deviation of values, 0 for a single value
+	 */
+	private static double getStandardDeviation(double[] values) {
+		if (values.length < 2) {
+			return 0;
+		}
+		double mean = getMean(values);
+		double sum = 0;
+		for (double value : values) {
+			sum += (value - mean) * (value - mean);
+		}
+		return Math.sqrt(sum / (values.length - 1));
+	}
+
+	/**
+	 * Get a percentile by the nearest rank method.
+	 * @param  sorted Values in ascending order [length > 0]
+	 * @param  percentile Percentile to get [0 <= n <= 100]
+	 * @return  Smallest value with at least percentile % of values less than or equal to it
+	 */
+	private static double getPercentile(double[] sorted, int percentile) {
+		int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+		return sorted[Math.max(rank - 1, 0)];
+	}
+
+	/**
+	 * Task that simulates a copy of the houses with a seed of its own.
+	 */
+	private class EnsembleRun implements Callable<ReportRecorder> {
+		private long runSeed;
+		private int simLength;
+
+		/**
+		 * Constructor for EnsembleRun.
+		 * @param  runSeed Seed of run
+		 * @param  simLength Unit time to run simulation for
+		 */
+		EnsembleRun(long runSeed, int simLength) {
+			this.runSeed = runSeed;
+			this.simLength = simLength;
+		}
+
+		@Override
+		public ReportRecorder call() {
+			ArrayList<House> runHouses = HouseCopier.copyAll(houses);
+			Simulation.seedAppliances(runHouses, runSeed);
+			ReportRecorder recorder = new ReportRecorder(runHouses.size());
+
+			SimulationEngine engine = new SequentialEngine();
+			engine.setClock(new UnpacedClock());
+			engine.addTickListener(recorder);
+			Logger.startDiscarding();
+			try {
+				engine.run(runHouses, simLength);
+			}
+			finally {
+				Logger.stopBuffer();
+			}
+			return recorder;
+		}
+	}
+
+	/**
+	 * Class of TickListener that records meter readings whenever a house reaches the end of a day.
+	 */
+	private static class ReportRecorder extends TickListener {
+		// Readings of each report (consumed then generated of each meter), indexed by house
+		private ArrayList<ArrayList<int[]>> reports;
+		// Day of each report, indexed by house
+		private ArrayList<ArrayList<Integer>> days;
+
+		/**
+		 * Constructor for ReportRecorder.
+		 * @param  houseCount Number of houses being simulated
+		 */
+		ReportRecorder(int houseCount) {
+			reports = new ArrayList<ArrayList<int[]>>(houseCount);
+			days = new ArrayList<ArrayList<Integer>>(houseCount);
+			for (int h = 0; h < houseCount; h++) {
+				reports.add(new ArrayList<int[]>());
+				days.add(new ArrayList<Integer>());
+			}
+		}
+
+		@Override
+		public void tickComplete(ArrayList<House> houses, int elapsed) {
+			for (int h = 0; h < houses.size(); h++) {
+				House house = houses.get(h);
+				if (house.getTime() % House.DAY_LENGTH == 0) {
+					reports.get(h).add(getReadings(house));
+					days.get(h).add(house.getTime() / House.DAY_LENGTH);
+				}
+			}
+		}
+
+		/**
+		 * @param  house House to read
+		 * @return  Consumed then generated readings of each meter of house
+		 */
+		private static int[] getReadings(House house) {
+			ArrayList<Meter> meters = new ArrayList<Meter>();
+			Iterator<Meter> itrMeters = house.getMetersIterator();
+			while (itrMeters.hasNext()) {
+				meters.add(itrMeters.next());
+			}
+			int[] readings = new int[meters.size() * 2];
+			for (int m = 0; m < meters.size(); m++) {
+				readings[m] = meters.get(m).getConsumed();
+				readings[meters.size() + m] = meters.get(m).getGenerated();
+			}
+			return readings;
+		}
+	}
+
+}
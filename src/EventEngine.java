@@ -0,0 +1,77 @@
+import java.util.ArrayList;
+
+/**
+ * Class of SimulationEngine that jumps each house straight to its next event.
+ * Unit times where no PersonTask is due, no duty cycle completes and no day ends are 
+ * simulated in a single step using House.advance, crediting appliances that are on 
+ * for the whole interval.
+ * 
+ * Each house is simulated to completion (or to the next TickListener notification) before 
+ * the next, so output is grouped by house rather than interleaved by unit time, but meter 
+ * totals and day reports are unchanged. Houses sharing a meter (see ConfigurationReader) are
+ * the exception: they are advanced together from one day report to the next, each running
+ * the unit time of a report in turn, so the shared meter reads as in a sequential simulation.
+ * Their output is grouped by day instead.
+ * Simulation is never paced, the clock is ignored.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class EventEngine extends SimulationEngine {
+
+	@Override
+	public void run(ArrayList<House> houses, int simLength) {
+		// Group of each house that shares a meter, indexed by house, null if it shares none
+		HouseGroup[] meterGroups = new HouseGroup[houses.size()];
+		for (HouseGroup group : HouseGroup.partition(houses)) {
+			if (group.hasSharedMeter()) {
+				for (int i = 0; i < group.size(); i++) {
+					meterGroups[group.getIndex(i)] = group;
+				}
+			}
+		}
+
+		// Advance houses in chunks between listener notifications
+		int elapsed = 0;
+		while (elapsed < simLength) {
+			int chunk = getTimeUntilListener(elapsed, simLength - elapsed);
+			for (int i = 0; i < houses.size(); i++) {
+				if (meterGroups[i] == null) {
+					houses.get(i).advance(chunk);
+				}
+				// A group is advanced in place of its first house
+				else if (meterGroups[i].getIndex(0) == i) {
+					advanceTogether(meterGroups[i], chunk);
+				}
+			}
+			elapsed += chunk;
+			notifyListeners(houses, elapsed);
+		}
+	}
+
+	/**
+	 * Advance the houses of a group together, stopping before each day report of any house in the
+	 * group so that every house runs the unit time of the report in order, as SequentialEngine does.
+	 * @param  group Houses to advance
+	 * @param  ticks Unit times to advance
+	 */
+	private void advanceTogether(HouseGroup group, int ticks) {
+		int remaining = ticks;
+		while (remaining > 0) {
+			// Unit times up to and including the next day report of any house
+			int step = remaining;
+			for (int i = 0; i < group.size(); i++) {
+				int time = group.getHouse(i).getTime();
+				step = Math.min(step, House.DAY_LENGTH - (time % House.DAY_LENGTH));
+			}
+			for (int i = 0; i < group.size(); i++) {
+				group.getHouse(i).advance(step - 1);
+			}
+			for (int i = 0; i < group.size(); i++) {
+				group.getHouse(i).advance(1);
+			}
+			remaining -= step;
+		}
+	}
+
+}
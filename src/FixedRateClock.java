@@ -0,0 +1,62 @@
+/**
+ * Class of SimulationClock that starts unit times at a fixed rate.
+ * Each unit time is scheduled from when the clock started rather than from when
+ * the last unit time finished, so time spent simulating does not cause drift.
+ * If the simulation falls behind, unit times start immediately until it catches up.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class FixedRateClock extends SimulationClock {
+	// Clock properties
+	private long periodNanos;
+	
+	// Ongoing properties
+	private long startNanos;
+
+	/**
+	 * Constructor for FixedRateClock.
+	 * @param  periodMillis Real time between the start of each unit time in milliseconds [>= 0]
+	 */
+	public FixedRateClock(long periodMillis) {
+		this((double) periodMillis);
+	}
+
+	/**
+	 * Constructor for FixedRateClock.
+	 * @param  periodMillis Real time between the start of each unit time in milliseconds [>= 0]
+	 */
+	protected FixedRateClock(double periodMillis) {
+		if (periodMillis < 0) {
+			Logger.error("Clock period cannot be negative");
+		}
+		this.periodNanos = (long) (periodMillis * 1000000);
+	}
+
+	/**
+	 * @return  Real time between the start of each unit time in nanoseconds
+	 */
+	public long getPeriodNanos() {
+		return periodNanos;
+	}
+
+	@Override
+	public void start() {
+		startNanos = System.nanoTime();
+	}
+
+	@Override
+	public void awaitTick(long tick) {
+		// Sleep until the scheduled start of the unit time
+		long remaining = startNanos + tick * periodNanos - System.nanoTime();
+		while (remaining > 0) {
+			try {
+				Thread.sleep(remaining / 1000000, (int) (remaining % 1000000));
+			} catch (InterruptedException e) {
+				Logger.error("Thread sleep failed");
+			}
+			remaining = startNanos + tick * periodNanos - System.nanoTime();
+		}
+	}
+
+}
@@ -0,0 +1,409 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Class of MeterSink that totals meter readings over the grid hierarchy each unit time.
+ * Houses are placed in the hierarchy by their grid path (see House.setGridPath), e.g. a
+ * substation, feeder then street. Every label is a node of a tree under a single root,
+ * which also holds houses without a grid path. Each node totals its houses and all nodes below it.
+ *
+ * Each unit time, meters are split into ranges that are summed into separate partial totals
+ * per node on a pool of threads, so no thread shares anything it writes. The partial totals
+ * are then merged and passed up the tree from the deepest nodes to the root.
+ * Totals of every unit time are kept for each node and UtilityType, giving the load curve
+ * of any street, feeder or substation.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class GridAggregator extends MeterSink {
+	/**
+	 * Separator between labels of a node's path
+	 */
+	public final static char PATH_SEP_LABEL = '/';
+	// Name of root node
+	private final static String ROOT_NAME = "Grid";
+	// Fewest meters worth summing on a separate thread
+	private final static int MIN_RANGE_SIZE = 4096;
+	// Unit times held before first growing
+	private final static int INITIAL_CAPACITY = House.DAY_LENGTH;
+	// Cached utility types, indexed by ordinal
+	private final static UtilityType[] TYPES = UtilityType.values();
+
+	private ArrayList<House> houses;
+	private int threadCount;
+	private ExecutorService pool = null; // null when summed on the calling thread
+
+	// Tree nodes, parents always before their children
+	private ArrayList<String> nodeNames = new ArrayList<String>();
+	private int[] parents; // parent of each node, -1 for the root
+	// Node and UtilityType ordinal of each meter, -1 if not a utility meter
+	private int[] meterNodes;
+	private int[] meterTypes;
+
+	// Ranges of meters summed separately
+	private ArrayList<RangeSum> ranges = new ArrayList<RangeSum>();
+	// Totals of the current unit time, indexed by node * TYPES.length + type ordinal
+	private long[] consumedTotals;
+	private long[] generatedTotals;
+	// Totals of every unit time, indexed by node * TYPES.length + type ordinal then unit time
+	private long[][] consumedCurves;
+	private long[][] generatedCurves;
+	private int tickCount = 0;
+
+	/**
+	 * Constructor for GridAggregator.
+	 * Sum on the calling thread.
+	 * @param  houses Houses being recorded, in the order given to the MeterRecorder
+	 */
+	public GridAggregator(ArrayList<House> houses) {
+		this(houses, 1);
+	}
+
+	/**
+	 * Constructor for GridAggregator.
+	 * @param  houses Houses being recorded, in the order given to the MeterRecorder
+	 * @param  threadCount Number of threads to sum meters on [> 0]
+	 */
+	public GridAggregator(ArrayList<House> houses, int threadCount) {
+		if (threadCount < 1) {
+			Logger.error("Thread count must be positive");
+		}
+		this.houses = houses;
+		this.threadCount = threadCount;
+	}
+
+	@Override
+	public void start(MeterSet meters) {
+		// Build the tree from the grid path of every house
+		HashMap<String, Integer> nodeIndexes = new HashMap<String, Integer>();
+		ArrayList<Integer> parentList = new ArrayList<Integer>();
+		int[] houseNodes = new int[houses.size()];
+		addNode(ROOT_NAME, -1, nodeIndexes, parentList);
+		for (int h = 0; h < houses.size(); h++) {
+			int node = 0;
+			String path = ROOT_NAME;
+			for (String label : houses.get(h).getGridPath()) {
+				path = path + PATH_SEP_LABEL + label;
+				node = addNode(path, node, nodeIndexes, parentList);
+			}
+			houseNodes[h] = node;
+		}
+		parents = new int[parentList.size()];
+		for (int n = 0; n < parents.length; n++) {
+			parents[n] = parentList.get(n);
+		}
+
+		// Find the node and type of each meter
+		meterNodes = new int[meters.size()];
+		meterTypes = new int[meters.size()];
+		for (int m = 0; m < meters.size(); m++) {
+			meterNodes[m] = houseNodes[meters.getHouseIndex(m)];
+			meterTypes[m] = -1;
+			for (UtilityType type : TYPES) {
+				if (type.asString().equals(meters.getType(m))) {
+					meterTypes[m] = type.ordinal();
+				}
+			}
+		}
+
+		// Split meters into a range per thread, if there are enough to be worth it
+		int rangeCount = Math.max(1, Math.min(threadCount, meters.size() / MIN_RANGE_SIZE));
+		int rangeSize = (meters.size() + rangeCount - 1) / rangeCount;
+		for (int from = 0; from < meters.size() || ranges.isEmpty(); from += rangeSize) {
+			ranges.add(new RangeSum(from, Math.min(meters.size(), from + rangeSize)));
+		}
+		if (ranges.size() > 1) {
+			// Daemon threads so a simulation that fails before finishing can still exit
+			pool = Executors.newFixedThreadPool(ranges.size(), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable task) {
+					Thread thread = new Thread(task, "Grid totals");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+
+		int slots = parents.length * TYPES.length;
+		consumedTotals = new long[slots];
+		generatedTotals = new long[slots];
+		consumedCurves = new long[slots][INITIAL_CAPACITY];
+		generatedCurves = new long[slots][INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Get the index of a node, adding it to the tree if not seen before.
+	 * @param  path Path of node
+	 * @param  parent Index of parent node
+	 * @param  nodeIndexes Indexes of nodes seen so far, by path
+	 * @param  parentList Parent of each node seen so far
+	 * @return  Index of node
+	 */
+	private int addNode(String path, int parent, HashMap<String, Integer> nodeIndexes, ArrayList<Integer> parentList) {
+		Integer index = nodeIndexes.get(path);
+		if (index == null) {
+			index = nodeNames.size();
+			nodeIndexes.put(path, index);
+			nodeNames.add(path);
+			parentList.add(parent);
+		}
+		return index;
+	}
+
+	@Override
+	public void record(int tick, int[] consumed, int[] generated) {
+		// Sum ranges into their own partial totals
+		if (pool == null) {
+			ranges.get(0).sum(consumed, generated);
+		}
+		else {
+			for (RangeSum range : ranges) {
+				range.setReadings(consumed, generated);
+			}
+			try {
+				waitForAll(pool.invokeAll(ranges));
+			}
+			catch (InterruptedException e) {
+				Logger.error("Grid totals interrupted whilst summing meters");
+			}
+		}
+
+		// Merge partial totals
+		Arrays.fill(consumedTotals, 0);
+		Arrays.fill(generatedTotals, 0);
+		for (RangeSum range : ranges) {
+			for (int i = 0; i < consumedTotals.length; i++) {
+				consumedTotals[i] += range.consumed[i];
+				generatedTotals[i] += range.generated[i];
+			}
+		}
+
+		// Pass totals up the tree, children come after their parents so are complete first
+		for (int n = parents.length - 1; n > 0; n--) {
+			int from = n * TYPES.length;
+			int to = parents[n] * TYPES.length;
+			for (int t = 0; t < TYPES.length; t++) {
+				consumedTotals[to + t] += consumedTotals[from + t];
+				generatedTotals[to + t] += generatedTotals[from + t];
+			}
+		}
+
+		// Keep totals of unit time
+		if (tickCount == consumedCurves[0].length) {
+			grow();
+		}
+		for (int i = 0; i < consumedTotals.length; i++) {
+			consumedCurves[i][tickCount] = consumedTotals[i];
+			generatedCurves[i][tickCount] = generatedTotals[i];
+		}
+		tickCount++;
+	}
+
+	@Override
+	public void finish() {
+		if (pool != null) {
+			pool.shutdownNow();
+			pool = null;
+		}
+	}
+
+	/**
+	 * Wait for all ranges of a unit time, rethrowing any unexpected failure.
+	 * @param  futures Futures of submitted ranges
+	 * @throws  InterruptedException If interrupted whilst waiting
+	 */
+	private static void waitForAll(List<Future<Void>> futures) throws InterruptedException {
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			}
+			catch (ExecutionException e) {
+				Logger.error(String.format("Grid totals failed unexpectedly\nCaught exception: %s", e.getCause()));
+			}
+		}
+	}
+
+	/**
+	 * Double the number of unit times held by every curve.
+	 */
+	private void grow() {
+		int capacity = consumedCurves[0].length * 2;
+		for (int i = 0; i < consumedCurves.length; i++) {
+			consumedCurves[i] = Arrays.copyOf(consumedCurves[i], capacity);
+			generatedCurves[i] = Arrays.copyOf(generatedCurves[i], capacity);
+		}
+	}
+
+	/**
+	 * @return  Number of nodes in the tree, 0 if recording has not started
+	 */
+	public int getNodeCount() {
+		return nodeNames.size();
+	}
+
+	/**
+	 * @param  n Index of node
+	 * @return  Path of node from the root e.g. 'Grid/Substation 1/Feeder 2'
+	 */
+	public String getNodeName(int n) {
+		return nodeNames.get(n);
+	}
+
+	/**
+	 * @param  n Index of node
+	 * @return  Index of parent node, -1 for the root
+	 */
+	public int getParent(int n) {
+		return parents[n];
+	}
+
+	/**
+	 * Find the index of a node by its labels.
+	 * @param  gridPath Labels of node, top level first, none for the root
+	 * @return  Index of node, -1 if not found
+	 */
+	public int find(String... gridPath) {
+		StringBuilder path = new StringBuilder(ROOT_NAME);
+		for (String label : gridPath) {
+			path.append(PATH_SEP_LABEL).append(label);
+		}
+		return nodeNames.indexOf(path.toString());
+	}
+
+	/**
+	 * @return  Number of unit times recorded
+	 */
+	public int getTickCount() {
+		return tickCount;
+	}
+
+	/**
+	 * @param  n Index of node
+	 * @param  type Utility type
+	 * @param  tick Unit time, counting from the start of recording
+	 * @return  Total consumed by meters of type under node during unit time
+	 */
+	public long getConsumed(int n, UtilityType type, int tick) {
+		checkTick(tick);
+		return consumedCurves[n * TYPES.length + type.ordinal()][tick];
+	}
+
+	/**
+	 * @param  n Index of node
+	 * @param  type Utility type
+	 * @param  tick Unit time, counting from the start of recording
+	 * @return  Total generated by meters of type under node during unit time
+	 */
+	public long getGenerated(int n, UtilityType type, int tick) {
+		checkTick(tick);
+		return generatedCurves[n * TYPES.length + type.ordinal()][tick];
+	}
+
+	/**
+	 * @param  tick Unit time to check has been recorded
+	 */
+	private void checkTick(int tick) {
+		if (tick < 0 || tick >= tickCount) {
+			Logger.error(String.format("Unit time %d has not been recorded, grid totals hold 0 to %d", tick, tickCount));
+		}
+	}
+
+	/**
+	 * Write the totals of every node as CSV, one row per unit time, node and utility type.
+	 * @param  filename Filename to write to
+	 */
+	public void writeCsv(String filename) {
+		try {
+			PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(filename)));
+			try {
+				writer.println("tick,node,meter,consumed,generated");
+				for (int tick = 0; tick < tickCount; tick++) {
+					for (int n = 0; n < nodeNames.size(); n++) {
+						for (UtilityType type : TYPES) {
+							int i = n * TYPES.length + type.ordinal();
+							writer.printf("%d,%s,%s,%d,%d%n", tick, nodeNames.get(n), type.asString(),
+									consumedCurves[i][tick], generatedCurves[i][tick]);
+						}
+					}
+				}
+			}
+			finally {
+				writer.close();
+			}
+		}
+		catch (IOException e) {
+			Logger.error(String.format("Grid totals '%s' could not be written\nCaught exception: %s", filename, e));
+		}
+	}
+
+	/**
+	 * Sum of a range of meters into partial totals per node, owned by the thread summing it.
+	 */
+	private class RangeSum implements Callable<Void> {
+		private int from;
+		private int to;
+		private long[] consumed;
+		private long[] generated;
+		// Readings of the current unit time
+		private int[] readingsConsumed;
+		private int[] readingsGenerated;
+
+		/**
+		 * Constructor for RangeSum.
+		 * @param  from First meter (inclusive)
+		 * @param  to Last meter (exclusive)
+		 */
+		RangeSum(int from, int to) {
+			this.from = from;
+			this.to = to;
+			this.consumed = new long[parents.length * TYPES.length];
+			this.generated = new long[parents.length * TYPES.length];
+		}
+
+		/**
+		 * @param  readingsConsumed Amount consumed by each meter during the unit time
+		 * @param  readingsGenerated Amount generated by each meter during the unit time
+		 */
+		void setReadings(int[] readingsConsumed, int[] readingsGenerated) {
+			this.readingsConsumed = readingsConsumed;
+			this.readingsGenerated = readingsGenerated;
+		}
+
+		@Override
+		public Void call() {
+			sum(readingsConsumed, readingsGenerated);
+			return null;
+		}
+
+		/**
+		 * Sum the range of meters into the partial totals of their nodes.
+		 * @param  tickConsumed Amount consumed by each meter during the unit time
+		 * @param  tickGenerated Amount generated by each meter during the unit time
+		 */
+		void sum(int[] tickConsumed, int[] tickGenerated) {
+			Arrays.fill(consumed, 0);
+			Arrays.fill(generated, 0);
+			for (int m = from; m < to; m++) {
+				if (meterTypes[m] >= 0) {
+					int i = meterNodes[m] * TYPES.length + meterTypes[m];
+					consumed[i] += tickConsumed[m];
+					generated[i] += tickGenerated[m];
+				}
+			}
+		}
+	}
+
+}
@@ -1,5 +1,8 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Class representing a house.
@@ -9,20 +12,31 @@ import java.util.Iterator;
  * ECS Smart Meter - COMP1202 Coursework
  * @author dsj1n15
  */
-public class House {
+public class House implements Cloneable {
 	/**
 	 * Constant day length
 	 */
 	public final static int DAY_LENGTH = 96;
+	// Maximum number of appliances, each has a bit of activeAppliances [<= 64]
+	private final static int MAX_APPLIANCES = 25;
 	
 	// House properties
 	private String name;
 	private int time; // units of 15 minutes (non-wrapping)
+	private String[] gridPath = new String[0]; // labels of grid hierarchy, top level first
 
 	// ArrayLists holding House's connected objects
 	ArrayList<Meter> meters = new ArrayList<Meter>();
+	private Meter[] metersByType = new Meter[UtilityType.values().length]; // indexed by UtilityType ordinal
 	ArrayList<Appliance> appliances = new ArrayList<Appliance>();
+	private long activeAppliances = 0; // bit i set when appliances.get(i) is active
 	ArrayList<Person> people = new ArrayList<Person>();
+	private HashMap<Person, Integer> peopleIndexes = new HashMap<Person, Integer>(); // index in people
+	// Appliances offering each task, by task name
+	private HashMap<String, TaskOffers> taskOffers = new HashMap<String, TaskOffers>();
+
+	// People with a PersonTask targeting the house, by the time it is due (may hold removed tasks)
+	private TimingWheel<Person> taskWheel;
 
 	/**
 	 * Constructor for House class.
@@ -67,6 +81,7 @@ public class House {
 		// Assign properties
 		this.name = name;
 		this.time = time;
+		this.taskWheel = new TimingWheel<Person>(time);
 		
 		Logger.message(String.format("House '%s' started at time '%d'", name, time));
 	}
@@ -85,6 +100,30 @@ public class House {
 		return time;
 	}
 
+	/**
+	 * @return  Labels of the grid hierarchy the house is in, top level first (see GridAggregator)
+	 */
+	public String[] getGridPath() {
+		return gridPath.clone();
+	}
+
+	/**
+	 * Place the house in the grid hierarchy.
+	 * @param  gridPath Labels of grid hierarchy, top level first e.g. substation, feeder, street
+	 */
+	public void setGridPath(String... gridPath) {
+		for (String label : gridPath) {
+			if (label == null || label.isEmpty()) {
+				Logger.error(String.format("Grid labels of '%s' cannot be empty", name));
+			}
+			if (label.indexOf(GridAggregator.PATH_SEP_LABEL) >= 0) {
+				Logger.error(String.format("Grid label '%s' of '%s' cannot contain '%c'", label, name, 
+						GridAggregator.PATH_SEP_LABEL));
+			}
+		}
+		this.gridPath = gridPath.clone();
+	}
+
 	/**
 	 * Adds a Meter to the House.
 	 * @param  meter Meter to add
@@ -95,14 +134,19 @@ public class House {
 			Logger.warning(String.format("Meter not connected to '%s' - null meter", name));
 		}
 		else {
-			// Check meter is not already attached, else add to array list
+			// Check meter is of a utility type and not already attached, else add to array list
 			String meterType = meter.getType();
-			if (getMeterOfType(meterType) != null) {
+			UtilityType type = UtilityType.fromString(meterType);
+			if (type == null) {
+				Logger.warning(String.format("Meter '%s' not connected to '%s' - not a utility type", meterType, name));
+			}
+			else if (metersByType[type.ordinal()] != null) {
 				Logger.warning(String.format("Meter '%s' not connected to '%s' - type is already connected", meterType, name));
 			}
 			else {
 				Logger.message(String.format("Meter '%s' connected to '%s'", meterType, name));
 				meters.add(meter);
+				metersByType[type.ordinal()] = meter;
 				updateAllApplianceMeters();
 			}
 		}
@@ -120,6 +164,7 @@ public class House {
 		else {
 			// Attempt to remove meter, true if successful
 			if (meters.remove(meter)) {
+				metersByType[UtilityType.fromString(meter.getType()).ordinal()] = null;
 				Logger.message(String.format("Meter '%s' removed from '%s", meter.getType(), name));
 				updateAllApplianceMeters();
 			}
@@ -129,21 +174,6 @@ public class House {
 		}
 	}
 
-	/**
-	 * Returns the Meter that matches a type.
-	 * @param   meterType Type of meter to search for
-	 * @return  matched Meter or null if not found
-	 */
-	private Meter getMeterOfType(String meterType) {	
-		// Search for meter type
-		for (Meter meter : meters) {
-			if (meter.getType().equals(meterType)) {
-				return meter;
-			}
-		}	
-		return null; // meter not found
-	}
-	
 	/**
 	 * Adds an Appliance to the House.
 	 * @param  appliance Appliance to add
@@ -158,13 +188,20 @@ public class House {
 			Logger.warning(String.format("Appliance '%s' not added to '%s' - appliance instance exists in house", name)); 
 		}
 		// Check if number of appliances exceed max
-		else if (numAppliances() >= 25) {
-			Logger.warning(String.format("Appliance '%s' not added to '%s' - maximum of 25 appliances", name));
+		else if (numAppliances() >= MAX_APPLIANCES) {
+			Logger.warning(String.format("Appliance '%s' not added to '%s' - maximum of %d appliances", appliance.getType(), name, MAX_APPLIANCES));
+		}
+		// Check appliance is not stepped by another house
+		else if (appliance.getHouse() != null) {
+			Logger.warning(String.format("Appliance '%s' not added to '%s' - appliance is in another house", appliance.getType(), name));
 		}
 		// Appliance okay
 		else {
 			Logger.message(String.format("Appliance '%s' added to '%s'", appliance.getType(), name));
 			appliances.add(appliance);
+			appliance.setHouse(this, appliances.size() - 1);
+			setApplianceActive(appliances.size() - 1, appliance.isActive());
+			addTaskOffers(appliance);
 			updateApplianceMeters(appliance);
 		}
 	}
@@ -180,6 +217,9 @@ public class House {
 		else {
 			// Attempt to remove appliance, returns true if successful
 			if (appliances.remove(appliance)) {
+				appliance.setHouse(null, 0);
+				indexAppliances();
+				removeTaskOffers(appliance);
 				Logger.message(String.format("Appliance '%s' removed from '%s", appliance.getType(), name));
 			}
 			else {
@@ -188,6 +228,87 @@ public class House {
 		}
 	}
 	
+	/**
+	 * Tell every appliance its index in the house and find which are active, e.g. after one is removed.
+	 */
+	private void indexAppliances() {
+		activeAppliances = 0;
+		for (int i = 0; i < appliances.size(); i++) {
+			Appliance appliance = appliances.get(i);
+			appliance.setHouse(this, i);
+			setApplianceActive(i, appliance.isActive());
+		}
+	}
+
+	/**
+	 * Update what depends on the state of an appliance, called by the appliance as it turns on or off.
+	 * @param  index Index of appliance in the house
+	 */
+	void applianceStateChanged(int index) {
+		Appliance appliance = appliances.get(index);
+		setApplianceActive(index, appliance.isActive());
+		Iterator<ApplianceTask> itrTasks = appliance.getTasksIterator();
+		while (itrTasks.hasNext()) {
+			taskOffers.get(itrTasks.next().getName()).updateAvailable(appliance);
+		}
+	}
+
+	/**
+	 * Record whether an appliance is active.
+	 * @param  index Index of appliance in the house
+	 * @param  active Whether the appliance is active, see Appliance.isActive
+	 */
+	private void setApplianceActive(int index, boolean active) {
+		if (active) {
+			activeAppliances |= (1L << index);
+		}
+		else {
+			activeAppliances &= ~(1L << index);
+		}
+	}
+
+	/**
+	 * Add the tasks of an appliance to the task index, after any appliance already offering them.
+	 * @param  appliance Appliance that has been added
+	 */
+	private void addTaskOffers(Appliance appliance) {
+		Iterator<ApplianceTask> itrTasks = appliance.getTasksIterator();
+		while (itrTasks.hasNext()) {
+			ApplianceTask task = itrTasks.next();
+			TaskOffers offers = taskOffers.get(task.getName());
+			if (offers == null) {
+				offers = new TaskOffers();
+				taskOffers.put(task.getName(), offers);
+			}
+			offers.add(appliance, task);
+		}
+	}
+
+	/**
+	 * Remove the tasks of an appliance from the task index.
+	 * @param  appliance Appliance that has been removed
+	 */
+	private void removeTaskOffers(Appliance appliance) {
+		Iterator<ApplianceTask> itrTasks = appliance.getTasksIterator();
+		while (itrTasks.hasNext()) {
+			String taskName = itrTasks.next().getName();
+			TaskOffers offers = taskOffers.get(taskName);
+			offers.remove(appliance);
+			if (offers.size() == 0) {
+				taskOffers.remove(taskName);
+			}
+		}
+	}
+
+	/**
+	 * Get the appliances of the house offering a task, without searching every appliance.
+	 * @param  taskName Name of task
+	 * @return  Appliances offering the task in the order they were added, null if none
+	 */
+	TaskOffers getTaskOffers(String taskName) {
+		return taskOffers.get(taskName);
+	}
+
 	/**
 	 * Runs updateApplianceMeters() for all connected appliances 
 	 */
@@ -237,12 +358,13 @@ public class House {
 			Logger.warning("Person not added to house - null person");
 		}
 		// Check for exact person reference in people
-		else if (people.contains(person)) {
+		else if (peopleIndexes.containsKey(person)) {
 			Logger.warning("Person not added to house - person instance exists in house");
 		}
 		else {
 			// Add to array list
 			Logger.message(String.format("Person '%s' added to '%s'", person.getName(), name));
+			peopleIndexes.put(person, people.size());
 			people.add(person);	
 		}
 	}
@@ -252,21 +374,93 @@ public class House {
 	 * @return  Returns true if instance of person is in house
 	 */
 	public boolean isPersonInHouse(Person person) {
-		return people.contains(person);
+		return peopleIndexes.containsKey(person);
 	}
 	
 	/**
-	 * Run simulation of time passing for current house
+	 * @return  Iterator of people in the house
+	 */
+	Iterator<Person> getPeopleIterator() {
+		return people.iterator();
+	}
+
+	/**
+	 * Restore the current time of the house, e.g. from a saved copy.
+	 * Scheduled task times are cleared and must be scheduled again.
+	 * @param  time The current time in the house
+	 */
+	void restoreTime(int time) {
+		this.time = time;
+		taskWheel = new TimingWheel<Person>(time);
+	}
+
+	/**
+	 * @return  True if any connected meter is billed
+	 */
+	boolean isBilled() {
+		for (Meter meter : meters) {
+			if (meter.getBill() != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Get the number of unit times until the rate of a billed meter changes.
+	 * Meters must be up to date at a change, as increments are priced as they are added.
+	 * @return  Unit times until a rate changes or the day ends, whichever is first
+	 */
+	int getTimeUntilRateChange() {
+		int untilChange = DAY_LENGTH - (time % DAY_LENGTH);
+		for (Meter meter : meters) {
+			if (meter.getBill() != null) {
+				untilChange = Math.min(untilChange, meter.getBill().getSchedule().getTimeUntilRateChange(time));
+			}
+		}
+		return untilChange;
+	}
+
+	/**
+	 * Record that a PersonTask targeting the house is due at a time.
+	 * Only people with a task due are stepped, and unit times where nothing is due can be skipped.
+	 * @param  person Person with the task
+	 * @param  taskTime Time the task is due [>= current time]
+	 */
+	void scheduleTask(Person person, int taskTime) {
+		taskWheel.schedule(taskTime, person);
+	}
+
+	/**
+	 * Get all objects connected to the house that could also be connected to another house.
+	 * @return  List of connected People, Appliances and Meters
+	 */
+	ArrayList<Object> getSharedObjects() {
+		ArrayList<Object> objects = new ArrayList<Object>(people.size() + appliances.size() + meters.size());
+		objects.addAll(people);
+		objects.addAll(appliances);
+		objects.addAll(meters);
+		return objects;
+	}
+
+	/**
+	 * Run simulation of time passing for current house.
+	 * Use default pacing of a unit time every 500 milliseconds.
 	 */
 	public void go() {
-		while (true) {	
+		go(new FixedRateClock(500));
+	}
+
+	/**
+	 * Run simulation of time passing for current house.
+	 * @param  clock Clock to pace unit times with
+	 */
+	public void go(SimulationClock clock) {
+		clock.start();
+		for (long tick = 1; true; tick++) {	
 			timePasses();
-			// Sleep between unit time increments to slow down simulation 
-			try {
-				Thread.sleep(500);
-			} catch (InterruptedException e) {
-				Logger.error("Thread sleep failed");
-			}
+			// Wait for next unit time to slow down simulation 
+			clock.awaitTick(tick);
 		}
 	}
 	
@@ -274,36 +468,165 @@ public class House {
 	 * Simulate a unit time passing in the house
 	 */
 	public void timePasses() {
-		// Call each Appliance timePasses method
-		for (Appliance appliance : appliances) {
-			appliance.timePasses();
+		stepAppliances();
+		stepPeople();
+		endTime(1);
+	}
+
+	/**
+	 * Call the timePasses method of each active Appliance, in the order appliances were added.
+	 * Appliances that are off do nothing in a unit time so are not visited.
+	 */
+	void stepAppliances() {
+		// Step a copy of the bits, appliances turning off clear theirs as they go
+		for (long active = activeAppliances; active != 0; active &= active - 1) {
+			appliances.get(Long.numberOfTrailingZeros(active)).timePasses();
 		}
+	}
 
-		// Call each Person timePasses method
-		for (Person person : people) {
-			person.timePasses(this);
+	/**
+	 * Call the timePasses method of each Person with a task due, in the order people were added
+	 */
+	void stepPeople() {
+		List<Person> due = taskWheel.getDue(time);
+		if (due.isEmpty()) {
+			return;
 		}
+		// Find where each due person is in people, people not in the house have nothing to do here
+		int[] indexes = new int[due.size()];
+		int count = 0;
+		for (Person person : due) {
+			Integer index = peopleIndexes.get(person);
+			if (index != null) {
+				indexes[count++] = index;
+			}
+		}
+		// Run in the order people were added, once each however many times they were scheduled
+		Arrays.sort(indexes, 0, count);
+		for (int i = 0; i < count; i++) {
+			if (i == 0 || indexes[i] != indexes[i - 1]) {
+				people.get(indexes[i]).timePasses(this);
+			}
+		}
+	}
 
+	/**
+	 * Increment time of day, outputting a report if the day has ended.
+	 * @param  ticks Number of unit times that have passed
+	 */
+	void endTime(int ticks) {
 		// Increment time of day
-		time++;
+		time += ticks;
 
 		// Check if day has ended
 		if (time % DAY_LENGTH == 0) {
 			outputMeterReport();
 		}
+	}
+
+	/**
+	 * Check whether a PersonTask targeting the house may be due now.
+	 * @return  True if a task is scheduled for the current time, else false
+	 */
+	boolean isTaskDue() {
+		return taskWheel.isDue(time);
+	}
+
+	/**
+	 * Simulate many unit times passing in the house.
+	 * Between events (a PersonTask becoming due, a duty cycle completing, the end of a day)
+	 * the effect of each Appliance is calculated directly instead of one unit time at a time:
+	 * always on appliances add usage * ticks and duty cycle appliances add usage up to the
+	 * end of their cycle. Stochastic appliances, such as a WindTurbine, are still stepped 
+	 * each unit time. The result is identical to calling timePasses() ticks times.
+	 * @param  ticks Number of unit times to pass [>= 0]
+	 */
+	public void advance(int ticks) {
+		if (ticks < 0) {
+			Logger.error("House cannot advance a negative number of unit times");
+		}
+		int remaining = ticks;
+		while (remaining > 0) {
+			int skip = Math.min(getTimeUntilNextEvent(), remaining);
+			if (skip <= 1) {
+				// Event due, or nothing to gain by skipping
+				timePasses();
+				remaining--;
+			}
+			else {
+				skipTime(skip);
+				remaining -= skip;
+			}
+		}
+	}
+
+	/**
+	 * Get the number of unit times that can be simulated in one step using skipTime.
+	 * The next event is the earliest of: a PersonTask becoming due, an Appliance 
+	 * completing its duty cycle, the rate of a billed meter changing and the end 
+	 * of the day. The unit time of an event
+	 * is included in the step unless it is a task, which must be run normally.
+	 * @return  Unit times until the next event, 0 if the next unit time must be run normally
+	 */
+	int getTimeUntilNextEvent() {
+		// Time until end of day report or a change of rate
+		int untilEvent = getTimeUntilRateChange();
+		// Time until next task, which is never after the end of the day
+		untilEvent = taskWheel.getTimeUntilNext(time, untilEvent);
+		// Time until next duty cycle completes, appliances that are off can always skip
+		for (long active = activeAppliances; active != 0; active &= active - 1) {
+			Appliance appliance = appliances.get(Long.numberOfTrailingZeros(active));
+			if (!appliance.canSkipTime()) {
+				return 0;
+			}
+			untilEvent = Math.min(untilEvent, appliance.getTimeUntilOff());
+		}
+		return untilEvent;
+	}
 
+	/**
+	 * Simulate many unit times passing in the house in one step.
+	 * Only valid when ticks does not pass the next event, the result is then
+	 * identical to calling timePasses() ticks times.
+	 * @param  ticks Number of unit times to pass [1 <= n <= getTimeUntilNextEvent()]
+	 */
+	void skipTime(int ticks) {
+		// Only active appliances change between events, no person has a task due
+		for (long active = activeAppliances; active != 0; active &= active - 1) {
+			appliances.get(Long.numberOfTrailingZeros(active)).skipTime(ticks);
+		}
+		endTime(ticks);
+	}
+
+	/**
+	 * Get the Meters connected to the house.
+	 * @return  Iterator of connected meters
+	 */
+	Iterator<Meter> getMetersIterator() {
+		return meters.iterator();
 	}
 
 	/**
 	 * Create a report using the houses connected meters
-	 * Report lists their consumed and generated values
+	 * Report lists their consumed and generated values, and cost if billed
 	 * Prints report to command line after generation
 	 * NOTE: This code is not memory efficient or fast but is flexible for future report changes
 	 */
 	private void outputMeterReport() {
 
+		// Charge the day to any bills, which add a row of costs
+		boolean billed = isBilled();
+		if (billed) {
+			for (Meter meter : meters) {
+				Bill bill = meter.getBill();
+				if (bill != null) {
+					bill.chargeDays(time / DAY_LENGTH);
+				}
+			}
+		}
+
 		// Declare StringBuilder array of report line count
-		StringBuilder[] reportLines = new StringBuilder[6];
+		StringBuilder[] reportLines = new StringBuilder[billed ? 7 : 6];
 		// Initialise StringBuilder array to hold the report lines
 		for (int i = 0; i < reportLines.length; i++) {
 			reportLines[i] = new StringBuilder(256); // By default assign 256 characters per line
@@ -318,6 +641,9 @@ public class House {
 		reportLines[2].append(String.format(columnFormat, "---"));
 		reportLines[3].append(String.format(columnFormat, "{Consumed}"));
 		reportLines[4].append(String.format(columnFormat, "{Generated}"));
+		if (billed) {
+			reportLines[5].append(String.format(columnFormat, "{Cost}"));
+		}
 		// reportLines[n-1] is wrapper
 		
 		// Append information to columns
@@ -325,6 +651,14 @@ public class House {
 			reportLines[2].append(String.format(columnFormat, meter.getType()));
 			reportLines[3].append(String.format(columnFormat, meter.getConsumed()));
 			reportLines[4].append(String.format(columnFormat, meter.getGenerated()));
+			if (billed) {
+				Bill bill = meter.getBill();
+				String cost = "-";
+				if (bill != null) {
+					cost = bill.asString();
+				}
+				reportLines[5].append(String.format(columnFormat, cost));
+			}
 		}
 		
 		// Determine width of report (length of standard row - 1)
@@ -344,4 +678,137 @@ public class House {
 
 	}
 
+	/**
+	 * Create a copy of the house and everything connected to it, see HouseCopier.
+	 * @param  copier Copier holding copies already made
+	 * @return  Copy of house
+	 */
+	House copy(HouseCopier copier) {
+		House copy;
+		try {
+			copy = (House) clone();
+		}
+		catch (CloneNotSupportedException e) {
+			Logger.error(String.format("House could not be copied\nCaught exception: %s", e));
+			return null;
+		}
+		copier.register(this, copy);
+		copy.meters = new ArrayList<Meter>(meters.size());
+		copy.metersByType = new Meter[metersByType.length];
+		for (Meter meter : meters) {
+			Meter meterCopy = copier.copyOf(meter);
+			copy.meters.add(meterCopy);
+			copy.metersByType[UtilityType.fromString(meter.getType()).ordinal()] = meterCopy;
+		}
+		copy.appliances = new ArrayList<Appliance>(appliances.size());
+		copy.taskOffers = new HashMap<String, TaskOffers>();
+		for (Appliance appliance : appliances) {
+			Appliance applianceCopy = copier.copyOf(appliance);
+			copy.appliances.add(applianceCopy);
+			copy.addTaskOffers(applianceCopy);
+		}
+		copy.indexAppliances();
+		copy.people = new ArrayList<Person>(people.size());
+		copy.peopleIndexes = new HashMap<Person, Integer>();
+		for (Person person : people) {
+			Person personCopy = copier.copyOf(person);
+			copy.peopleIndexes.put(personCopy, copy.people.size());
+			copy.people.add(personCopy);
+		}
+		copy.taskWheel = new TimingWheel<Person>(time);
+		ArrayList<Integer> dueTimes = new ArrayList<Integer>();
+		ArrayList<Person> duePeople = new ArrayList<Person>();
+		taskWheel.getScheduled(dueTimes, duePeople);
+		for (int i = 0; i < dueTimes.size(); i++) {
+			copy.taskWheel.schedule(dueTimes.get(i), copier.copyOf(duePeople.get(i)));
+		}
+		return copy;
+	}
+
+	/**
+	 * Class representing the appliances of a house offering a task, in the order they were added.
+	 * Offers whose appliance is in the state the task requires are kept as available, updated by
+	 * the house whenever an appliance turns on or off, so a task never checks appliances in use.
+	 */
+	static class TaskOffers {
+		private ArrayList<Appliance> appliances = new ArrayList<Appliance>(1);
+		private ArrayList<ApplianceTask> tasks = new ArrayList<ApplianceTask>(1);
+		private long available = 0; // bit i set when offer i is available, at most MAX_APPLIANCES offers
+
+		/**
+		 * @param  appliance Appliance offering the task
+		 * @param  task Task of the appliance
+		 */
+		void add(Appliance appliance, ApplianceTask task) {
+			appliances.add(appliance);
+			tasks.add(task);
+			setAvailable(appliances.size() - 1);
+		}
+
+		/**
+		 * @param  appliance Appliance no longer offering the task
+		 */
+		void remove(Appliance appliance) {
+			int i = appliances.indexOf(appliance);
+			appliances.remove(i);
+			tasks.remove(i);
+			// Offers after the removed one move down an index
+			available = 0;
+			for (int j = 0; j < appliances.size(); j++) {
+				setAvailable(j);
+			}
+		}
+
+		/**
+		 * @param  appliance Appliance offering the task that has turned on or off
+		 */
+		void updateAvailable(Appliance appliance) {
+			setAvailable(appliances.indexOf(appliance));
+		}
+
+		/**
+		 * Set whether an offer is available from the state of its appliance.
+		 * @param  i Index of offer
+		 */
+		private void setAvailable(int i) {
+			Boolean requiredState = tasks.get(i).getRequiredState();
+			if (requiredState == null || appliances.get(i).getCurrentState() == requiredState) {
+				available |= (1L << i);
+			}
+			else {
+				available &= ~(1L << i);
+			}
+		}
+
+		/**
+		 * @return  Offers whose appliance is in the state its task requires, bit i set for offer i
+		 */
+		long getAvailable() {
+			return available;
+		}
+
+		/**
+		 * @return  Number of appliances offering the task
+		 */
+		int size() {
+			return appliances.size();
+		}
+
+		/**
+		 * @param  i Index of offer
+		 * @return  Appliance of offer
+		 */
+		Appliance getAppliance(int i) {
+			return appliances.get(i);
+		}
+
+		/**
+		 * @param  i Index of offer
+		 * @return  Task of the appliance of offer
+		 */
+		ApplianceTask getTask(int i) {
+			return tasks.get(i);
+		}
+	}
+
 }
@@ -0,0 +1,78 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * Class that makes deep copies of houses, including everything connected to them.
+ * Objects shared between houses (people, appliances and meters) are copied once,
+ * so the copies share objects in the same way as the originals.
+ * Copies hold the current state of the originals and can be simulated independently.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class HouseCopier {
+	// Copy of each object copied so far, by original
+	private IdentityHashMap<Object, Object> copies = new IdentityHashMap<Object, Object>();
+
+	/**
+	 * Copy a list of houses.
+	 * @param  houses Houses to copy
+	 * @return  Copies of houses in the same order
+	 */
+	public static ArrayList<House> copyAll(ArrayList<House> houses) {
+		HouseCopier copier = new HouseCopier();
+		ArrayList<House> copy = new ArrayList<House>(houses.size());
+		for (House house : houses) {
+			copy.add(copier.copyOf(house));
+		}
+		return copy;
+	}
+
+	/**
+	 * Record the copy of an object.
+	 * Objects must register their copy before copying connected objects, so that 
+	 * objects connected back to them are given the same copy.
+	 * @param  original Original object
+	 * @param  copy Copy of object
+	 */
+	void register(Object original, Object copy) {
+		copies.put(original, copy);
+	}
+
+	/**
+	 * @param  house House to copy
+	 * @return  Copy of house, the existing copy if already copied
+	 */
+	House copyOf(House house) {
+		House copy = (House) copies.get(house);
+		return (copy != null) ? copy : house.copy(this);
+	}
+
+	/**
+	 * @param  appliance Appliance to copy
+	 * @return  Copy of appliance, the existing copy if already copied
+	 */
+	Appliance copyOf(Appliance appliance) {
+		Appliance copy = (Appliance) copies.get(appliance);
+		return (copy != null) ? copy : appliance.copy(this);
+	}
+
+	/**
+	 * @param  meter Meter to copy
+	 * @return  Copy of meter, the existing copy if already copied
+	 */
+	Meter copyOf(Meter meter) {
+		Meter copy = (Meter) copies.get(meter);
+		return (copy != null) ? copy : meter.copy(this);
+	}
+
+	/**
+	 * @param  person Person to copy
+	 * @return  Copy of person, the existing copy if already copied
+	 */
+	Person copyOf(Person person) {
+		Person copy = (Person) copies.get(person);
+		return (copy != null) ? copy : person.copy(this);
+	}
+
+}
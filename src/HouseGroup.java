@@ -0,0 +1,143 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+/**
+ * Class representing a group of houses that must be simulated together.
+ * Houses are independent unless they share an object (a Person added to more
+ * than one house by object reference, or a shared Appliance or Meter). Houses that
+ * share objects are kept in the same group so that a group can be simulated on its
+ * own thread without other groups touching its state.
+ * Houses in a group are held in the order they were provided.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class HouseGroup {
+	// Houses in group, in simulation order
+	private ArrayList<House> houses = new ArrayList<House>();
+	// Indexes of houses in the full list of simulated houses
+	private ArrayList<Integer> indexes = new ArrayList<Integer>();
+
+	/**
+	 * Adds a House to the end of the group.
+	 * @param  house House to add
+	 * @param  index Index of the house in the full list of simulated houses
+	 */
+	private void addHouse(House house, int index) {
+		houses.add(house);
+		indexes.add(index);
+	}
+
+	/**
+	 * @return  Number of houses in the group
+	 */
+	public int size() {
+		return houses.size();
+	}
+
+	/**
+	 * @param  i Position of house in group
+	 * @return  House at position in group
+	 */
+	public House getHouse(int i) {
+		return houses.get(i);
+	}
+
+	/**
+	 * @param  i Position of house in group
+	 * @return  Index of house at position in the full list of simulated houses
+	 */
+	public int getIndex(int i) {
+		return indexes.get(i);
+	}
+
+	/**
+	 * @return  True if a Meter is connected to more than one house of the group
+	 */
+	public boolean hasSharedMeter() {
+		IdentityHashMap<Meter, House> owners = new IdentityHashMap<Meter, House>();
+		for (House house : houses) {
+			Iterator<Meter> itrMeters = house.getMetersIterator();
+			while (itrMeters.hasNext()) {
+				if (owners.put(itrMeters.next(), house) != null) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Partition a list of houses into groups of houses that share objects.
+	 * Groups are ordered by the index of their first house.
+	 * @param  houses Houses to partition
+	 * @return  Groups covering all houses exactly once
+	 */
+	public static ArrayList<HouseGroup> partition(ArrayList<House> houses) {
+		// Union-find parent of each house index
+		int[] parent = new int[houses.size()];
+		for (int i = 0; i < parent.length; i++) {
+			parent[i] = i;
+		}
+
+		// Join houses that hold the same object instance
+		IdentityHashMap<Object, Integer> owners = new IdentityHashMap<Object, Integer>();
+		for (int i = 0; i < houses.size(); i++) {
+			for (Object shared : houses.get(i).getSharedObjects()) {
+				Integer owner = owners.get(shared);
+				if (owner == null) {
+					owners.put(shared, i);
+				}
+				else {
+					union(parent, owner, i);
+				}
+			}
+		}
+
+		// Collect groups in order of their first house
+		ArrayList<HouseGroup> groups = new ArrayList<HouseGroup>();
+		HouseGroup[] rootGroups = new HouseGroup[houses.size()];
+		for (int i = 0; i < houses.size(); i++) {
+			int root = find(parent, i);
+			if (rootGroups[root] == null) {
+				rootGroups[root] = new HouseGroup();
+				groups.add(rootGroups[root]);
+			}
+			rootGroups[root].addHouse(houses.get(i), i);
+		}
+		return groups;
+	}
+
+	/**
+	 * Find the root of a union-find set, compressing the path on the way.
+	 * @param  parent Parent array of union-find sets
+	 * @param  i Index to find root of
+	 * @return  Root index of set containing i
+	 */
+	private static int find(int[] parent, int i) {
+		while (parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	/**
+	 * Join the union-find sets of two indexes, keeping the lowest root.
+	 * @param  parent Parent array of union-find sets
+	 * @param  a First index
+	 * @param  b Second index
+	 */
+	private static void union(int[] parent, int a, int b) {
+		int rootA = find(parent, a);
+		int rootB = find(parent, b);
+		if (rootA < rootB) {
+			parent[rootB] = rootA;
+		}
+		else if (rootB < rootA) {
+			parent[rootA] = rootB;
+		}
+	}
+
+}
@@ -44,7 +44,7 @@ public class Kettle extends Appliance {
 		
 		// Define Appliance tasks on object instantiation
 		// An exception is thrown if the task method does not exist
-		addTask(new ApplianceTask("Boil", getMethod("turnOn"), true, false));
+		addTask(new ApplianceTask("Boil", Appliance::turnOn, true, false));
 	}
 	
 	@Override
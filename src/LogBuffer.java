@@ -0,0 +1,70 @@
+import java.util.ArrayList;
+
+/**
+ * Class holding Logger output that has been held back so that it can be 
+ * written later, in order, by another thread.
+ * Only messages and warnings are held, errors are always written immediately.
+ * 
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class LogBuffer {
+	// Buffered output in the order it was logged
+	private ArrayList<String> lines = new ArrayList<String>();
+	private ArrayList<Boolean> isWarning = new ArrayList<Boolean>();
+	// True if output is thrown away instead of held
+	private boolean discard;
+
+	/**
+	 * Constructor for LogBuffer.
+	 * Hold all output added.
+	 */
+	public LogBuffer() {
+		this(false);
+	}
+
+	/**
+	 * Constructor for LogBuffer.
+	 * @param  discard True if output added is thrown away, e.g. for runs that are only measured
+	 */
+	public LogBuffer(boolean discard) {
+		this.discard = discard;
+	}
+
+	/**
+	 * Add a line of output to the buffer.
+	 * @param  msg Message to hold, warnings should already be prefixed
+	 * @param  warning True if the line is a warning, else a message
+	 */
+	void add(String msg, boolean warning) {
+		if (discard) {
+			return;
+		}
+		lines.add(msg);
+		isWarning.add(warning);
+	}
+
+	/**
+	 * @return  Number of lines held in the buffer
+	 */
+	public int size() {
+		return lines.size();
+	}
+
+	/**
+	 * Write all held output using the current Logger settings and empty the buffer.
+	 */
+	public void flush() {
+		for (int i = 0; i < lines.size(); i++) {
+			if (isWarning.get(i)) {
+				Logger.writeWarning(lines.get(i));
+			}
+			else {
+				Logger.writeMessage(lines.get(i));
+			}
+		}
+		lines.clear();
+		isWarning.clear();
+	}
+
+}
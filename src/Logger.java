@@ -25,6 +25,17 @@ public class Logger {
 	// Default Error settings
 	private static boolean errorLog = true;
 
+	// Per thread buffer of messages and warnings, null when output is written immediately
+	private static ThreadLocal<LogBuffer> threadBuffer = new ThreadLocal<LogBuffer>();
+
+	// Stream messages and warnings are written to as records, null when written as normal
+	private static PrintStream recordStream = null;
+	// Record types, the first character of each record line
+	static final char MESSAGE_RECORD = 'M';
+	static final char WARNING_RECORD = 'W';
+	static final char LOG_RECORD = 'L'; // written to log file only
+	static final char MARKER_RECORD = 'T';
+
 
 	/**
 	 * Set logging settings for messages.
@@ -81,6 +92,25 @@ public class Logger {
 	 * @param  log True or false respective to whether output should go to log file
 	 */
 	public static void message(String msg, boolean toCmd, boolean log) {		
+		// Hold message back if the current thread is buffering
+		LogBuffer buffer = threadBuffer.get();
+		if (buffer != null) {
+			buffer.add(msg, false);
+		}
+		else {
+			writeMessage(msg);
+		}
+	}
+
+	/**
+	 * Write a message to the log file and command line as dictated by message settings.
+	 * @param  msg Message to output
+	 */
+	static synchronized void writeMessage(String msg) {
+		if (recordStream != null) {
+			writeRecord(MESSAGE_RECORD, msg);
+			return;
+		}
 		// Write error to log file
 		if (messageToLog) {
 			writeLogMessage(msg);
@@ -120,6 +150,25 @@ public class Logger {
 	public static void warning(String msg, boolean toCmd, boolean log) {
 		msg = "[WARNING] " + msg;
 		
+		// Hold warning back if the current thread is buffering
+		LogBuffer buffer = threadBuffer.get();
+		if (buffer != null) {
+			buffer.add(msg, true);
+		}
+		else {
+			writeWarning(msg);
+		}
+	}
+
+	/**
+	 * Write a prefixed warning to the log file and command line as dictated by warning settings.
+	 * @param  msg Warning to output
+	 */
+	static synchronized void writeWarning(String msg) {
+		if (recordStream != null) {
+			writeRecord(WARNING_RECORD, msg);
+			return;
+		}
 		// Write error to log file
 		if (warningLog) {
 			writeLogMessage(msg);
@@ -150,7 +199,11 @@ public class Logger {
 	 * Append a message to a file.
 	 * @param  msg Message to write
 	 */
-	private static void writeLogMessage(String msg) {
+	static synchronized void writeLogMessage(String msg) {
+		if (recordStream != null) {
+			writeRecord(LOG_RECORD, msg);
+			return;
+		}
 		// Open PrintStream
 		try {
 			// Open a writer to append
@@ -165,6 +218,57 @@ public class Logger {
 		}
 	}
 
+	/**
+	 * Start buffering messages and warnings logged by the current thread.
+	 * Buffered output is not written until the returned buffer is flushed, allowing 
+	 * output from concurrent threads to be written in a deterministic order.
+	 * Errors are never buffered.
+	 * @return  Buffer that output from the current thread is added to
+	 */
+	public static LogBuffer startBuffer() {
+		LogBuffer buffer = new LogBuffer();
+		threadBuffer.set(buffer);
+		return buffer;
+	}
+
+	/**
+	 * Start discarding messages and warnings logged by the current thread, until stopBuffer is called.
+	 * Errors are never discarded.
+	 */
+	public static void startDiscarding() {
+		threadBuffer.set(new LogBuffer(true));
+	}
+
+	/**
+	 * Stop buffering or discarding messages and warnings logged by the current thread.
+	 * Output logged after this call is written immediately.
+	 */
+	public static void stopBuffer() {
+		threadBuffer.remove();
+	}
+
+	/**
+	 * Write messages and warnings to a stream as records instead of the command line and log file,
+	 * so that another process can read and write them (see ShardWorker).
+	 * Each line of output becomes a record line starting with its record type.
+	 * @param  stream Stream to write records to, null to write output as normal
+	 */
+	public static synchronized void setRecordStream(PrintStream stream) {
+		recordStream = stream;
+	}
+
+	/**
+	 * Write a record to the record stream, one record line per line of text.
+	 * @param  type Type of record
+	 * @param  msg Text of record
+	 */
+	static synchronized void writeRecord(char type, String msg) {
+		for (String line : msg.split("\n", -1)) {
+			recordStream.print(type);
+			recordStream.println(line);
+		}
+	}
+
 	/**
 	 * Delete current log file.
 	 * @return  Whether delete was successful
@@ -0,0 +1,163 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Class of MeterSink that appends readings to a memory mapped file, so history is not held on the heap.
+ * Readings are written straight into the mapped file and can be read by MappedMeterReader
+ * once recording has finished, or whilst it is running.
+ *
+ * File layout:
+ * - Header: magic, version, meter count, chunk length, unit times recorded (updated as recorded),
+ *   data offset, then the house index, house name and type of each meter
+ * - Data: chunks of chunk length unit times, starting at the data offset (page aligned).
+ *   Each chunk holds a fixed width column of consumed then generated ints for each meter in turn
+ *   e.g. consumed of meter m at unit time t of chunk is at ((m * 2) * chunkLength + t) * 4
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class MappedMeterHistory extends MeterSink {
+	// File identifier ('SMMH') and format version
+	final static int MAGIC = 0x534D4D48;
+	final static int VERSION = 1;
+	// Offsets of header fields
+	final static int METER_COUNT_OFFSET = 8;
+	final static int CHUNK_LENGTH_OFFSET = 12;
+	final static int TICK_COUNT_OFFSET = 16;
+	final static int DATA_OFFSET_OFFSET = 24;
+	final static int METERS_OFFSET = 32;
+	// Alignment of data and bytes per reading
+	final static int PAGE_SIZE = 4096;
+	final static int READING_SIZE = 4;
+	// Largest region mapped at once
+	private final static long MAX_CHUNK_BYTES = 1 << 30;
+
+	private String filename;
+	private int chunkLength;
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private MappedByteBuffer header;
+	private MappedByteBuffer chunk; // chunk being written
+	private long dataOffset;
+	private int meterCount;
+	private long tickCount = 0;
+
+	/**
+	 * Constructor for MappedMeterHistory.
+	 * Use chunks of a day.
+	 * @param  filename Filename to write to, replacing any existing file
+	 */
+	public MappedMeterHistory(String filename) {
+		this(filename, House.DAY_LENGTH);
+	}
+
+	/**
+	 * Constructor for MappedMeterHistory.
+	 * @param  filename Filename to write to, replacing any existing file
+	 * @param  chunkLength Unit times mapped at once, reduced if too large to map [> 0]
+	 */
+	public MappedMeterHistory(String filename, int chunkLength) {
+		if (chunkLength < 1) {
+			Logger.error("Chunk length must be positive");
+		}
+		this.filename = filename;
+		this.chunkLength = chunkLength;
+	}
+
+	@Override
+	public void start(MeterSet meters) {
+		meterCount = meters.size();
+		long bytesPerTick = (long) meterCount * 2 * READING_SIZE;
+		if (bytesPerTick > 0) {
+			chunkLength = (int) Math.max(1, Math.min(chunkLength, MAX_CHUNK_BYTES / bytesPerTick));
+		}
+		try {
+			byte[] headerBytes = createHeader(meters);
+			dataOffset = ((headerBytes.length + PAGE_SIZE - 1) / PAGE_SIZE) * PAGE_SIZE;
+
+			file = new RandomAccessFile(filename, "rw");
+			file.setLength(0);
+			channel = file.getChannel();
+			header = channel.map(FileChannel.MapMode.READ_WRITE, 0, dataOffset);
+			header.put(headerBytes);
+			header.putLong(DATA_OFFSET_OFFSET, dataOffset);
+		}
+		catch (IOException e) {
+			Logger.error(String.format("Meter history '%s' could not be created\nCaught exception: %s", filename, e));
+		}
+	}
+
+	/**
+	 * Create the header of the file, with the unit times recorded as 0.
+	 * @param  meters Meters being recorded
+	 * @return  Header bytes
+	 * @throws  IOException If the header cannot be written
+	 */
+	private byte[] createHeader(MeterSet meters) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(meterCount);
+		out.writeInt(chunkLength);
+		out.writeLong(0); // unit times recorded
+		out.writeLong(0); // data offset, set once known
+		for (int m = 0; m < meterCount; m++) {
+			out.writeInt(meters.getHouseIndex(m));
+			out.writeUTF(meters.getHouseName(m));
+			out.writeUTF(meters.getType(m));
+		}
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public void record(int tick, int[] consumed, int[] generated) {
+		int t = (int) (tickCount % chunkLength);
+		if (t == 0) {
+			mapChunk(tickCount / chunkLength);
+		}
+		for (int m = 0; m < meterCount; m++) {
+			int column = m * 2 * chunkLength;
+			chunk.putInt((column + t) * READING_SIZE, consumed[m]);
+			chunk.putInt((column + chunkLength + t) * READING_SIZE, generated[m]);
+		}
+		// Publish the unit time once its readings are written
+		tickCount++;
+		header.putLong(TICK_COUNT_OFFSET, tickCount);
+	}
+
+	/**
+	 * Map a chunk for writing, extending the file.
+	 * @param  index Index of chunk
+	 */
+	private void mapChunk(long index) {
+		long chunkBytes = (long) meterCount * 2 * chunkLength * READING_SIZE;
+		try {
+			chunk = channel.map(FileChannel.MapMode.READ_WRITE, dataOffset + index * chunkBytes, chunkBytes);
+		}
+		catch (IOException e) {
+			Logger.error(String.format("Meter history '%s' could not be extended\nCaught exception: %s", filename, e));
+		}
+	}
+
+	@Override
+	public void finish() {
+		try {
+			if (chunk != null) {
+				chunk.force();
+			}
+			header.force();
+			channel.close();
+			file.close();
+		}
+		catch (IOException e) {
+			Logger.error(String.format("Meter history '%s' could not be closed\nCaught exception: %s", filename, e));
+		}
+	}
+
+}
@@ -0,0 +1,253 @@
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * Class that reads a meter history file written by MappedMeterHistory.
+ * Chunks of the file are mapped when first read and readings are read straight from the
+ * mapped file. The file can be read whilst it is still being written, the number of unit
+ * times recorded is read from the file each time it is asked for.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class MappedMeterReader {
+	private String filename;
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private MappedByteBuffer header;
+	private int meterCount;
+	private int chunkLength;
+	private long dataOffset;
+	// Meter descriptions, indexed by meter
+	private int[] houseIndexes;
+	private String[] houseNames;
+	private String[] types;
+	// Chunks mapped so far, indexed by chunk
+	private ArrayList<MappedByteBuffer> chunks = new ArrayList<MappedByteBuffer>();
+
+	/**
+	 * Constructor for MappedMeterReader.
+	 * @param  filename Filename of meter history file
+	 */
+	public MappedMeterReader(String filename) {
+		this.filename = filename;
+		try {
+			file = new RandomAccessFile(filename, "r");
+			channel = file.getChannel();
+			// Fixed header fields tell how much to map
+			ByteBuffer fixed = channel.map(FileChannel.MapMode.READ_ONLY, 0, MappedMeterHistory.METERS_OFFSET);
+			if (fixed.getInt(0) != MappedMeterHistory.MAGIC) {
+				Logger.error(String.format("'%s' is not a meter history file", filename));
+			}
+			if (fixed.getInt(4) != MappedMeterHistory.VERSION) {
+				Logger.error(String.format("Meter history version '%d' is not supported", fixed.getInt(4)));
+			}
+			meterCount = fixed.getInt(MappedMeterHistory.METER_COUNT_OFFSET);
+			chunkLength = fixed.getInt(MappedMeterHistory.CHUNK_LENGTH_OFFSET);
+			dataOffset = fixed.getLong(MappedMeterHistory.DATA_OFFSET_OFFSET);
+			header = channel.map(FileChannel.MapMode.READ_ONLY, 0, dataOffset);
+			readMeters();
+		}
+		catch (IOException e) {
+			Logger.error(String.format("Meter history '%s' could not be read\nCaught exception: %s", filename, e));
+		}
+	}
+
+	/**
+	 * Read the description of each meter from the header.
+	 * @throws  IOException If the header cannot be read
+	 */
+	private void readMeters() throws IOException {
+		ByteBuffer meters = header.duplicate();
+		meters.position(MappedMeterHistory.METERS_OFFSET);
+		DataInputStream in = new DataInputStream(new BufferInputStream(meters));
+		houseIndexes = new int[meterCount];
+		houseNames = new String[meterCount];
+		types = new String[meterCount];
+		for (int m = 0; m < meterCount; m++) {
+			houseIndexes[m] = in.readInt();
+			houseNames[m] = in.readUTF();
+			types[m] = in.readUTF();
+		}
+	}
+
+	/**
+	 * @return  Number of meters
+	 */
+	public int getMeterCount() {
+		return meterCount;
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @return  Type of meter e.g. 'Electric'
+	 */
+	public String getType(int m) {
+		return types[m];
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @return  Index of house of meter
+	 */
+	public int getHouseIndex(int m) {
+		return houseIndexes[m];
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @return  Name of house of meter
+	 */
+	public String getHouseName(int m) {
+		return houseNames[m];
+	}
+
+	/**
+	 * Find the index of a meter of a house.
+	 * @param  houseIndex Index of house
+	 * @param  type Type of meter e.g. 'Electric'
+	 * @return  Index of meter, -1 if not found
+	 */
+	public int find(int houseIndex, String type) {
+		for (int m = 0; m < meterCount; m++) {
+			if (houseIndexes[m] == houseIndex && types[m].equals(type)) {
+				return m;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return  Number of unit times recorded so far
+	 */
+	public long getTickCount() {
+		return header.getLong(MappedMeterHistory.TICK_COUNT_OFFSET);
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @param  tick Unit time
+	 * @return  Amount consumed by meter during unit time
+	 */
+	public int getConsumed(int m, long tick) {
+		return getReading(m, tick, 0);
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @param  tick Unit time
+	 * @return  Amount generated by meter during unit time
+	 */
+	public int getGenerated(int m, long tick) {
+		return getReading(m, tick, chunkLength);
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @param  from First unit time (inclusive)
+	 * @param  to Last unit time (exclusive)
+	 * @return  Total consumed by meter during range
+	 */
+	public long sumConsumed(int m, long from, long to) {
+		long total = 0;
+		for (long tick = from; tick < to; tick++) {
+			total += getReading(m, tick, 0);
+		}
+		return total;
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @param  from First unit time (inclusive)
+	 * @param  to Last unit time (exclusive)
+	 * @return  Total generated by meter during range
+	 */
+	public long sumGenerated(int m, long from, long to) {
+		long total = 0;
+		for (long tick = from; tick < to; tick++) {
+			total += getReading(m, tick, chunkLength);
+		}
+		return total;
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @param  tick Unit time
+	 * @param  columnOffset Offset of column in meter's columns, 0 for consumed or chunkLength for generated
+	 * @return  Reading at unit time
+	 */
+	private int getReading(int m, long tick, int columnOffset) {
+		if (m < 0 || m >= meterCount) {
+			Logger.error(String.format("Meter '%d' is not in meter history", m));
+		}
+		if (tick < 0 || tick >= getTickCount()) {
+			Logger.error(String.format("Unit time '%d' has not been recorded", tick));
+		}
+		int t = (int) (tick % chunkLength);
+		MappedByteBuffer chunk = getChunk((int) (tick / chunkLength));
+		return chunk.getInt((m * 2 * chunkLength + columnOffset + t) * MappedMeterHistory.READING_SIZE);
+	}
+
+	/**
+	 * Get a chunk, mapping it if not already mapped.
+	 * @param  index Index of chunk
+	 * @return  Mapped chunk
+	 */
+	private MappedByteBuffer getChunk(int index) {
+		while (chunks.size() <= index) {
+			chunks.add(null);
+		}
+		MappedByteBuffer chunk = chunks.get(index);
+		if (chunk == null) {
+			long chunkBytes = (long) meterCount * 2 * chunkLength * MappedMeterHistory.READING_SIZE;
+			try {
+				chunk = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + index * chunkBytes, chunkBytes);
+			}
+			catch (IOException e) {
+				Logger.error(String.format("Meter history '%s' could not be read\nCaught exception: %s", filename, e));
+			}
+			chunks.set(index, chunk);
+		}
+		return chunk;
+	}
+
+	/**
+	 * Close the file, readings can no longer be read.
+	 */
+	public void close() {
+		try {
+			channel.close();
+			file.close();
+		}
+		catch (IOException e) {
+			Logger.error(String.format("Meter history '%s' could not be closed\nCaught exception: %s", filename, e));
+		}
+	}
+
+	/**
+	 * InputStream reading the remaining bytes of a ByteBuffer.
+	 */
+	private static class BufferInputStream extends InputStream {
+		private ByteBuffer buffer;
+
+		/**
+		 * Constructor for BufferInputStream.
+		 * @param  buffer Buffer to read from its position
+		 */
+		BufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+		}
+	}
+
+}
@@ -1,14 +1,17 @@
 /**
  * Abstract class that represents a Meter.
+ * A meter can be shared by houses (e.g. one meter of a block of flats). Engines simulate houses
+ * sharing a meter on the same thread (see HouseGroup), so it is never incremented concurrently.
  * 
  * ECS Smart Meter - COMP1202 Coursework
  * @author dsj1n15
  */
-public abstract class Meter {
+public abstract class Meter implements Cloneable {
 	// Meter properties
 	private int consumed;
 	private int generated;
 	private boolean canGenerate;
+	private Bill bill = null; // null when not billed
 	
 	/**
 	 * Constructor for Meter class.
@@ -45,11 +48,26 @@ public abstract class Meter {
 
 	/**
 	 * Increment consumed value.
-	 * Use parameter increment.
+	 * Use parameter increment. A billed meter must be given the unit time, see incrementConsumed(int, int).
 	 * @param  inc Increment to use
 	 */
 	public void incrementConsumed(int inc) {
+		if (bill != null) {
+			Logger.error(String.format("Billed meter '%s' must be given the unit time of an increment", getType()));
+		}
+		incrementConsumed(inc, 0);
+	}
+
+	/**
+	 * Increment consumed value, pricing it at the rate of a unit time if billed.
+	 * @param  inc Increment to use
+	 * @param  time Unit time of the house consuming
+	 */
+	public void incrementConsumed(int inc, int time) {
 		consumed += inc;
+		if (bill != null) {
+			bill.addConsumed(inc, time);
+		}
 	}
 
 	/**
@@ -75,8 +93,12 @@ public abstract class Meter {
 	 */
 	public void incrementGenerated(int inc) {
 		// generated cannot change when !canGenerate
-		if (canGenerate) {
-			generated += inc;
+		if (!canGenerate) {
+			return;
+		}
+		generated += inc;
+		if (bill != null) {
+			bill.addGenerated(inc);
 		}
 	}
 
@@ -87,7 +109,6 @@ public abstract class Meter {
 		return generated;
 	}
 
-
 	/**
 	 * @return  State of canGenerate
 	 */
@@ -95,9 +116,54 @@ public abstract class Meter {
 		return canGenerate;
 	}
 	
+	/**
+	 * @return  Bill of meter, null if not billed
+	 */
+	Bill getBill() {
+		return bill;
+	}
+
+	/**
+	 * @param  bill Bill to price increments with, null to stop billing
+	 */
+	void setBill(Bill bill) {
+		this.bill = bill;
+	}
+
+	/**
+	 * Restore the readings of the meter, e.g. from a saved copy.
+	 * @param  consumed Amount consumed
+	 * @param  generated Amount generated
+	 */
+	void restoreReadings(int consumed, int generated) {
+		this.consumed = consumed;
+		this.generated = generated;
+	}
+
 	/**
 	 * @return  Meter type as string
 	 */
 	public abstract String getType();
 
-}
\ No newline at end of file
+	/**
+	 * Create a copy of the meter, see HouseCopier.
+	 * @param  copier Copier holding copies already made
+	 * @return  Copy of meter
+	 */
+	Meter copy(HouseCopier copier) {
+		Meter copy;
+		try {
+			copy = (Meter) clone();
+		}
+		catch (CloneNotSupportedException e) {
+			Logger.error(String.format("Meter could not be copied\nCaught exception: %s", e));
+			return null;
+		}
+		copier.register(this, copy);
+		if (bill != null) {
+			copy.bill = bill.copy();
+		}
+		return copy;
+	}
+
+}
@@ -0,0 +1,253 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Class of MeterSink that indexes readings for fast queries over any range of unit times.
+ * For each meter, the running total consumed and generated at every unit time is kept, so the
+ * amount over a range is the difference of two totals, found in constant time.
+ *
+ * For peak demand, the maximum consumed in each block of BLOCK_LENGTH unit times is kept in a
+ * sparse table, holding the maximum of every run of 1, 2, 4... blocks. The maximum over a range
+ * is found from two overlapping runs of whole blocks plus the unit times either side, each read
+ * from the running totals, in constant time for a given block length. The table grows by one
+ * entry per level as each block completes, O(log n) time per block.
+ *
+ * Queries read from a file (see MeterQuery) are answered in a report after the day reports.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class MeterIntervalIndex extends MeterSink {
+	// Unit times summarised by each block of the sparse table
+	private final static int BLOCK_LENGTH = 16;
+	// Unit times held before first growing
+	private final static int INITIAL_CAPACITY = House.DAY_LENGTH;
+
+	private MeterSet meters;
+	private MeterIndex[] indexes = new MeterIndex[0];
+	private int tickCount = 0;
+
+	@Override
+	public void start(MeterSet meters) {
+		this.meters = meters;
+		indexes = new MeterIndex[meters.size()];
+		for (int m = 0; m < indexes.length; m++) {
+			indexes[m] = new MeterIndex();
+		}
+	}
+
+	@Override
+	public void record(int tick, int[] consumed, int[] generated) {
+		for (int m = 0; m < indexes.length; m++) {
+			indexes[m].record(tickCount, consumed[m], generated[m]);
+		}
+		tickCount++;
+	}
+
+	/**
+	 * @return  Meters that readings are indexed by, null if recording has not started
+	 */
+	public MeterSet getMeters() {
+		return meters;
+	}
+
+	/**
+	 * @return  Number of unit times recorded
+	 */
+	public int getTickCount() {
+		return tickCount;
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @param  from First unit time (inclusive)
+	 * @param  to Last unit time (exclusive)
+	 * @return  Total consumed by meter during range
+	 */
+	public long getConsumed(int m, int from, int to) {
+		checkRange(from, to);
+		long[] totals = indexes[m].consumedTotals;
+		return totals[to] - totals[from];
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @param  from First unit time (inclusive)
+	 * @param  to Last unit time (exclusive)
+	 * @return  Total generated by meter during range
+	 */
+	public long getGenerated(int m, int from, int to) {
+		checkRange(from, to);
+		long[] totals = indexes[m].generatedTotals;
+		return totals[to] - totals[from];
+	}
+
+	/**
+	 * Get the most consumed by a meter in a single unit time of a range.
+	 * @param  m Index of meter
+	 * @param  from First unit time (inclusive)
+	 * @param  to Last unit time (exclusive) [> from]
+	 * @return  Peak consumed in one unit time
+	 */
+	public int getPeakConsumed(int m, int from, int to) {
+		checkRange(from, to);
+		if (from == to) {
+			Logger.error("Peak of an empty range is not defined");
+		}
+		MeterIndex index = indexes[m];
+		// Whole blocks within range
+		int firstBlock = (from + BLOCK_LENGTH - 1) / BLOCK_LENGTH;
+		int lastBlock = to / BLOCK_LENGTH; // exclusive
+		if (firstBlock >= lastBlock) {
+			return index.getPeak(from, to);
+		}
+		int peak = index.getBlockPeak(firstBlock, lastBlock);
+		peak = Math.max(peak, index.getPeak(from, firstBlock * BLOCK_LENGTH));
+		peak = Math.max(peak, index.getPeak(lastBlock * BLOCK_LENGTH, to));
+		return peak;
+	}
+
+	/**
+	 * Answer queries and output them as a report.
+	 * Queries of a meter that is not recorded, or of unit times not yet recorded, are skipped with a warning.
+	 * @param  queries Queries to answer
+	 */
+	public void outputQueries(ArrayList<MeterQuery> queries) {
+		String columnFormat = "%12s ";
+		String rowFormat = columnFormat + columnFormat + columnFormat + columnFormat + columnFormat
+				+ columnFormat + columnFormat + columnFormat;
+		ArrayList<StringBuilder> reportLines = new ArrayList<StringBuilder>();
+		reportLines.add(new StringBuilder(String.format("Meter queries - Unit time 0 to %d recorded", tickCount - 1)));
+		reportLines.add(new StringBuilder(String.format(rowFormat,
+				"---", "House", "Meter", "From", "To", "Consumed", "Generated", "Peak")));
+		for (int i = 0; i < queries.size(); i++) {
+			MeterQuery query = queries.get(i);
+			int m = (meters != null) ? meters.find(query.getHouseName(), query.getMeterType()) : -1;
+			if (m == -1) {
+				Logger.warning(String.format("Query %d skipped - '%s' has no %s meter recorded", i + 1,
+						query.getHouseName(), query.getMeterType()));
+				continue;
+			}
+			if (query.getTo() > tickCount) {
+				Logger.warning(String.format("Query %d skipped - unit times %d to %d have not all been recorded",
+						i + 1, query.getFrom(), query.getTo()));
+				continue;
+			}
+			reportLines.add(new StringBuilder(String.format(rowFormat, String.format("{%d}", i + 1),
+					query.getHouseName(), query.getMeterType(), query.getFrom(), query.getTo(),
+					getConsumed(m, query.getFrom(), query.getTo()), getGenerated(m, query.getFrom(), query.getTo()),
+					getPeakConsumed(m, query.getFrom(), query.getTo()))));
+		}
+
+		// Wrap report to the width of the heading row
+		StringBuilder wrapper = new StringBuilder();
+		for (int c = 0; c < reportLines.get(1).length() - 1; c++) {
+			wrapper.append('*');
+		}
+		Logger.message(wrapper.toString());
+		for (StringBuilder line : reportLines) {
+			Logger.message(line.toString());
+		}
+		Logger.message(wrapper.toString());
+	}
+
+	/**
+	 * Check a range of unit times has been recorded.
+	 * @param  from First unit time (inclusive)
+	 * @param  to Last unit time (exclusive)
+	 */
+	private void checkRange(int from, int to) {
+		if (from < 0 || to > tickCount || from > to) {
+			Logger.error(String.format("Unit times %d to %d have not been recorded, index holds 0 to %d",
+					from, to, tickCount));
+		}
+	}
+
+	/**
+	 * Class holding the running totals and sparse table of a meter.
+	 */
+	private static class MeterIndex {
+		// Totals before each unit time, [t] is the total of unit times 0 to t - 1
+		private long[] consumedTotals = new long[INITIAL_CAPACITY + 1];
+		private long[] generatedTotals = new long[INITIAL_CAPACITY + 1];
+		// Maximum of runs of 2^level blocks, indexed by level then first block of run
+		private int[][] blockPeaks = new int[1][INITIAL_CAPACITY / BLOCK_LENGTH + 1];
+		private int blockCount = 0;
+		// Maximum of the block being recorded
+		private int currentPeak = 0;
+
+		/**
+		 * Record the readings of the next unit time.
+		 * @param  tick Unit time of readings, one after the last recorded
+		 * @param  consumed Amount consumed during unit time
+		 * @param  generated Amount generated during unit time
+		 */
+		void record(int tick, int consumed, int generated) {
+			if (tick + 1 >= consumedTotals.length) {
+				consumedTotals = Arrays.copyOf(consumedTotals, consumedTotals.length * 2);
+				generatedTotals = Arrays.copyOf(generatedTotals, generatedTotals.length * 2);
+			}
+			consumedTotals[tick + 1] = consumedTotals[tick] + consumed;
+			generatedTotals[tick + 1] = generatedTotals[tick] + generated;
+
+			// Complete a block every BLOCK_LENGTH unit times
+			currentPeak = (tick % BLOCK_LENGTH == 0) ? consumed : Math.max(currentPeak, consumed);
+			if ((tick + 1) % BLOCK_LENGTH == 0) {
+				addBlock(currentPeak);
+			}
+		}
+
+		/**
+		 * Add a completed block to the sparse table, filling the new run ending at it in every level.
+		 * @param  peak Maximum of the block
+		 */
+		private void addBlock(int peak) {
+			int block = blockCount++;
+			// Add a level once the longest run fits
+			if (Integer.highestOneBit(blockCount) >= (1 << blockPeaks.length)) {
+				blockPeaks = Arrays.copyOf(blockPeaks, blockPeaks.length + 1);
+				blockPeaks[blockPeaks.length - 1] = new int[blockPeaks[0].length];
+			}
+			if (block >= blockPeaks[0].length) {
+				int capacity = blockPeaks[0].length * 2;
+				for (int level = 0; level < blockPeaks.length; level++) {
+					blockPeaks[level] = Arrays.copyOf(blockPeaks[level], capacity);
+				}
+			}
+			blockPeaks[0][block] = peak;
+			for (int level = 1; level < blockPeaks.length; level++) {
+				int first = block - (1 << level) + 1;
+				if (first < 0) {
+					break;
+				}
+				int half = 1 << (level - 1);
+				blockPeaks[level][first] = Math.max(blockPeaks[level - 1][first], blockPeaks[level - 1][first + half]);
+			}
+		}
+
+		/**
+		 * @param  firstBlock First block (inclusive)
+		 * @param  lastBlock Last block (exclusive) [> firstBlock]
+		 * @return  Maximum consumed in a unit time of the blocks
+		 */
+		int getBlockPeak(int firstBlock, int lastBlock) {
+			// Two runs of the largest power of two blocks cover the range
+			int level = 31 - Integer.numberOfLeadingZeros(lastBlock - firstBlock);
+			return Math.max(blockPeaks[level][firstBlock], blockPeaks[level][lastBlock - (1 << level)]);
+		}
+
+		/**
+		 * @param  from First unit time (inclusive)
+		 * @param  to Last unit time (exclusive)
+		 * @return  Maximum consumed in a unit time of range, 0 if empty
+		 */
+		int getPeak(int from, int to) {
+			int peak = 0;
+			for (int tick = from; tick < to; tick++) {
+				peak = Math.max(peak, (int) (consumedTotals[tick + 1] - consumedTotals[tick]));
+			}
+			return peak;
+		}
+	}
+
+}
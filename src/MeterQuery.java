@@ -0,0 +1,140 @@
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Class representing a query of how much a meter consumed and generated over a range of unit times,
+ * answered by a MeterIntervalIndex once simulated.
+ *
+ * A query file lists one query per line, counting unit times from the start of recording:
+ *   House 1,Water,0,96      - Water meter of 'House 1' from unit time 0 up to 96
+ * Blank lines and lines starting '//' are ignored, as in configuration files.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class MeterQuery {
+	// Query file syntax
+	private static final String COMMENT_LABEL = "//";
+	private static final char ARG_SEP_LABEL = ',';
+	private static final int ARG_COUNT = 4;
+
+	private String houseName;
+	private String meterType;
+	private int from;
+	private int to;
+
+	/**
+	 * Constructor for MeterQuery.
+	 * @param  houseName Name of house the meter is in
+	 * @param  meterType Type of meter e.g. 'Electric'
+	 * @param  from First unit time (inclusive) [>= 0]
+	 * @param  to Last unit time (exclusive) [> from]
+	 */
+	public MeterQuery(String houseName, String meterType, int from, int to) {
+		UtilityType type = UtilityType.fromString(meterType);
+		if (type == null) {
+			Logger.error(String.format("Query meter '%s' is not a utility type", meterType));
+		}
+		if (from < 0 || to <= from) {
+			Logger.error(String.format("Query range %d to %d must hold at least one unit time from 0", from, to));
+		}
+		this.houseName = houseName;
+		this.meterType = type.asString();
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * Read queries from a file.
+	 * @param  filename Filename of queries
+	 * @return  Queries in the order they are listed
+	 */
+	public static ArrayList<MeterQuery> load(String filename) {
+		ArrayList<MeterQuery> queries = new ArrayList<MeterQuery>();
+		try {
+			BufferedReader reader = new BufferedReader(new FileReader(filename));
+			try {
+				String line;
+				for (int lineNumber = 1; (line = reader.readLine()) != null; lineNumber++) {
+					line = line.trim();
+					if (line.isEmpty() || line.startsWith(COMMENT_LABEL)) {
+						continue;
+					}
+					queries.add(readLine(line, String.format("'%s' line %d", filename, lineNumber)));
+				}
+			}
+			finally {
+				reader.close();
+			}
+		}
+		catch (FileNotFoundException e) {
+			Logger.error(String.format("'%s' not found", filename));
+		}
+		catch (IOException e) {
+			Logger.error(String.format("Queries '%s' could not be read\nCaught exception: %s", filename, e));
+		}
+		return queries;
+	}
+
+	/**
+	 * Read a query from a line of a query file.
+	 * @param  line Line to read, not blank or a comment
+	 * @param  location Description of the line for errors
+	 * @return  Query of line
+	 */
+	private static MeterQuery readLine(String line, String location) {
+		String[] args = line.split(String.valueOf(ARG_SEP_LABEL), -1);
+		if (args.length != ARG_COUNT) {
+			Logger.error(String.format("%s should have %d arguments", location, ARG_COUNT));
+		}
+		return new MeterQuery(args[0].trim(), args[1].trim(), parseInteger(args[2], location),
+				parseInteger(args[3], location));
+	}
+
+	/**
+	 * @param  arg Argument to parse
+	 * @param  location Description of the line for errors
+	 * @return  Parsed integer
+	 */
+	private static int parseInteger(String arg, String location) {
+		try {
+			return Integer.parseInt(arg.trim());
+		}
+		catch (NumberFormatException e) {
+			Logger.error(String.format("%s has '%s' where an integer is expected", location, arg));
+			return 0;
+		}
+	}
+
+	/**
+	 * @return  Value of houseName
+	 */
+	public String getHouseName() {
+		return houseName;
+	}
+
+	/**
+	 * @return  Value of meterType
+	 */
+	public String getMeterType() {
+		return meterType;
+	}
+
+	/**
+	 * @return  Value of from
+	 */
+	public int getFrom() {
+		return from;
+	}
+
+	/**
+	 * @return  Value of to
+	 */
+	public int getTo() {
+		return to;
+	}
+
+}
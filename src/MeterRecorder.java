@@ -0,0 +1,108 @@
+import java.util.ArrayList;
+
+/**
+ * Class of TickListener that records how much each meter consumed and generated every unit time.
+ * Readings are taken as the change in each meter since the previous unit time and passed to
+ * every MeterSink added. The same arrays are used every unit time so no objects are created
+ * once recording has started.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class MeterRecorder extends TickListener {
+	private MeterSet meters;
+	private ArrayList<MeterSink> sinks = new ArrayList<MeterSink>();
+	private boolean started = false;
+
+	// Readings of each meter at the end of the previous unit time
+	private int[] lastConsumed;
+	private int[] lastGenerated;
+	// Change of each meter during the current unit time
+	private int[] consumed;
+	private int[] generated;
+	// Unit time of the next readings
+	private int tick = 0;
+
+	/**
+	 * Constructor for MeterRecorder.
+	 * Readings are taken relative to the meters at construction, before the houses are simulated.
+	 * @param  houses Houses to record the meters of
+	 */
+	public MeterRecorder(ArrayList<House> houses) {
+		this.meters = new MeterSet(houses);
+		int count = meters.size();
+		lastConsumed = new int[count];
+		lastGenerated = new int[count];
+		consumed = new int[count];
+		generated = new int[count];
+		for (int m = 0; m < count; m++) {
+			lastConsumed[m] = meters.getMeter(m).getConsumed();
+			lastGenerated[m] = meters.getMeter(m).getGenerated();
+		}
+	}
+
+	/**
+	 * @return  Meters that readings are indexed by
+	 */
+	public MeterSet getMeters() {
+		return meters;
+	}
+
+	/**
+	 * Add a sink to pass readings to, sinks must be added before the simulation starts.
+	 * @param  sink Sink to add
+	 */
+	public void addSink(MeterSink sink) {
+		if (sink == null) {
+			Logger.error("Meter sink cannot be null");
+		}
+		if (started) {
+			Logger.error("Meter sinks cannot be added once recording has started");
+		}
+		sinks.add(sink);
+	}
+
+	@Override
+	public void tickComplete(ArrayList<House> houses, int elapsed) {
+		start();
+
+		// Take change of each meter since the last unit time
+		for (int m = 0; m < consumed.length; m++) {
+			Meter meter = meters.getMeter(m);
+			int currentConsumed = meter.getConsumed();
+			int currentGenerated = meter.getGenerated();
+			consumed[m] = currentConsumed - lastConsumed[m];
+			generated[m] = currentGenerated - lastGenerated[m];
+			lastConsumed[m] = currentConsumed;
+			lastGenerated[m] = currentGenerated;
+		}
+
+		for (MeterSink sink : sinks) {
+			sink.record(tick, consumed, generated);
+		}
+		tick++;
+	}
+
+	/**
+	 * Start every sink, if not already started.
+	 */
+	private void start() {
+		if (!started) {
+			for (MeterSink sink : sinks) {
+				sink.start(meters);
+			}
+			started = true;
+		}
+	}
+
+	/**
+	 * Finish recording, passing on to every sink.
+	 */
+	public void finish() {
+		start();
+		for (MeterSink sink : sinks) {
+			sink.finish();
+		}
+	}
+
+}
@@ -0,0 +1,164 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Class of MeterSink that rolls readings up into hour, day, week and month buckets (see RollupPeriod).
+ * Buckets count from the start of recording, bucket b of a period covering unit times
+ * [b * length, (b + 1) * length). Each unit time is added to the current bucket of every period,
+ * so coarse totals can be read at any point without summing unit times again.
+ *
+ * Buckets of each period are a ring per meter holding the latest retained buckets, including
+ * the one being filled, so memory stays fixed however long the simulation runs.
+ * Once simulated, the buckets retained can be written to a CSV file.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class MeterRollup extends MeterSink {
+	// Cached periods, indexed by ordinal
+	private final static RollupPeriod[] PERIODS = RollupPeriod.values();
+
+	private MeterSet meters;
+	// Bucket totals, indexed by period ordinal, meter then slot (bucket % retained)
+	private long[][][] consumed = new long[PERIODS.length][0][];
+	private long[][][] generated = new long[PERIODS.length][0][];
+	// Unit times recorded so far
+	private int tickCount = 0;
+
+	@Override
+	public void start(MeterSet meters) {
+		this.meters = meters;
+		for (RollupPeriod period : PERIODS) {
+			consumed[period.ordinal()] = new long[meters.size()][period.getRetained()];
+			generated[period.ordinal()] = new long[meters.size()][period.getRetained()];
+		}
+	}
+
+	@Override
+	public void record(int tick, int[] tickConsumed, int[] tickGenerated) {
+		for (RollupPeriod period : PERIODS) {
+			long[][] periodConsumed = consumed[period.ordinal()];
+			long[][] periodGenerated = generated[period.ordinal()];
+			int slot = (tickCount / period.getLength()) % period.getRetained();
+			// First unit time of a bucket replaces the oldest bucket
+			if (tickCount % period.getLength() == 0) {
+				for (int m = 0; m < periodConsumed.length; m++) {
+					periodConsumed[m][slot] = tickConsumed[m];
+					periodGenerated[m][slot] = tickGenerated[m];
+				}
+			}
+			else {
+				for (int m = 0; m < periodConsumed.length; m++) {
+					periodConsumed[m][slot] += tickConsumed[m];
+					periodGenerated[m][slot] += tickGenerated[m];
+				}
+			}
+		}
+		tickCount++;
+	}
+
+	/**
+	 * @return  Meters that readings are indexed by, null if recording has not started
+	 */
+	public MeterSet getMeters() {
+		return meters;
+	}
+
+	/**
+	 * @return  Number of unit times recorded
+	 */
+	public int getTickCount() {
+		return tickCount;
+	}
+
+	/**
+	 * @param  period Period of buckets
+	 * @return  Number of buckets started, the last may not be complete
+	 */
+	public int getBucketCount(RollupPeriod period) {
+		return (tickCount + period.getLength() - 1) / period.getLength();
+	}
+
+	/**
+	 * @param  period Period of buckets
+	 * @return  Number of buckets that have been filled for their whole period
+	 */
+	public int getCompleteBucketCount(RollupPeriod period) {
+		return tickCount / period.getLength();
+	}
+
+	/**
+	 * @param  period Period of buckets
+	 * @return  Oldest bucket still retained
+	 */
+	public int getFirstBucket(RollupPeriod period) {
+		return Math.max(0, getBucketCount(period) - period.getRetained());
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @param  period Period of bucket
+	 * @param  bucket Bucket to get, counting from the start of recording
+	 * @return  Total consumed by meter during bucket so far
+	 */
+	public long getConsumed(int m, RollupPeriod period, int bucket) {
+		return consumed[period.ordinal()][m][getSlot(period, bucket)];
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @param  period Period of bucket
+	 * @param  bucket Bucket to get, counting from the start of recording
+	 * @return  Total generated by meter during bucket so far
+	 */
+	public long getGenerated(int m, RollupPeriod period, int bucket) {
+		return generated[period.ordinal()][m][getSlot(period, bucket)];
+	}
+
+	/**
+	 * Write the retained buckets of every period to a CSV file, finest period first.
+	 * Each row is a bucket of a meter, tick being the first unit time of the bucket.
+	 * The last bucket of a period may not be complete.
+	 * @param  filename Filename to write to
+	 */
+	public void writeCsv(String filename) {
+		try {
+			PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(filename)));
+			try {
+				writer.println("period,bucket,tick,house,meter,consumed,generated");
+				for (RollupPeriod period : PERIODS) {
+					for (int bucket = getFirstBucket(period); bucket < getBucketCount(period); bucket++) {
+						for (int m = 0; m < meters.size(); m++) {
+							writer.printf("%s,%d,%d,%s,%s,%d,%d%n", period.asString(), bucket, bucket * period.getLength(),
+									meters.getHouseName(m), meters.getType(m), getConsumed(m, period, bucket),
+									getGenerated(m, period, bucket));
+						}
+					}
+				}
+			}
+			finally {
+				writer.close();
+			}
+		}
+		catch (IOException e) {
+			Logger.error(String.format("Meter rollups '%s' could not be written\nCaught exception: %s", filename, e));
+		}
+	}
+
+	/**
+	 * Get the slot of a retained bucket.
+	 * @param  period Period of bucket
+	 * @param  bucket Bucket to find
+	 * @return  Slot holding bucket
+	 */
+	private int getSlot(RollupPeriod period, int bucket) {
+		if (bucket < getFirstBucket(period) || bucket >= getBucketCount(period)) {
+			Logger.error(String.format("%s %d is not held, rollup holds %d to %d", period.asString(), bucket,
+					getFirstBucket(period), getBucketCount(period)));
+		}
+		return bucket % period.getRetained();
+	}
+
+}
@@ -0,0 +1,116 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+/**
+ * Class that numbers the meters of a list of houses, for recording meters in columns.
+ * Meters are numbered in house order, then in the order they were added to the house.
+ * A meter connected to more than one house is numbered once, for the first house.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class MeterSet {
+	private Meter[] meters;
+	private int[] houseIndexes; // index of house of each meter
+	private String[] houseNames; // name of house of each meter
+
+	/**
+	 * Constructor for MeterSet.
+	 * @param  houses Houses to number the meters of
+	 */
+	public MeterSet(ArrayList<House> houses) {
+		IdentityHashMap<Meter, Boolean> seen = new IdentityHashMap<Meter, Boolean>();
+		ArrayList<Meter> meterList = new ArrayList<Meter>();
+		ArrayList<Integer> houseList = new ArrayList<Integer>();
+		for (int h = 0; h < houses.size(); h++) {
+			Iterator<Meter> itrMeters = houses.get(h).getMetersIterator();
+			while (itrMeters.hasNext()) {
+				Meter meter = itrMeters.next();
+				if (seen.put(meter, Boolean.TRUE) == null) {
+					meterList.add(meter);
+					houseList.add(h);
+				}
+			}
+		}
+
+		meters = meterList.toArray(new Meter[meterList.size()]);
+		houseIndexes = new int[meters.length];
+		houseNames = new String[meters.length];
+		for (int m = 0; m < meters.length; m++) {
+			houseIndexes[m] = houseList.get(m);
+			houseNames[m] = houses.get(houseIndexes[m]).getName();
+		}
+	}
+
+	/**
+	 * @return  Number of meters
+	 */
+	public int size() {
+		return meters.length;
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @return  Meter at index
+	 */
+	Meter getMeter(int m) {
+		return meters[m];
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @return  Type of meter e.g. 'Electric'
+	 */
+	public String getType(int m) {
+		return meters[m].getType();
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @return  Index of house the meter is numbered for
+	 */
+	public int getHouseIndex(int m) {
+		return houseIndexes[m];
+	}
+
+	/**
+	 * @param  m Index of meter
+	 * @return  Name of house the meter is numbered for
+	 */
+	public String getHouseName(int m) {
+		return houseNames[m];
+	}
+
+	/**
+	 * Find the index of a meter of a house by name.
+	 * A meter connected to more than one house is only found for the first house.
+	 * @param  houseName Name of house
+	 * @param  type Type of meter e.g. 'Electric'
+	 * @return  Index of meter, -1 if not found
+	 */
+	public int find(String houseName, String type) {
+		for (int m = 0; m < meters.length; m++) {
+			if (houseNames[m].equals(houseName) && meters[m].getType().equals(type)) {
+				return m;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Find the index of a meter of a house.
+	 * @param  houseIndex Index of house
+	 * @param  type Type of meter e.g. 'Electric'
+	 * @return  Index of meter, -1 if not found
+	 */
+	public int find(int houseIndex, String type) {
+		for (int m = 0; m < meters.length; m++) {
+			if (houseIndexes[m] == houseIndex && meters[m].getType().equals(type)) {
+				return m;
+			}
+		}
+		return -1;
+	}
+
+}
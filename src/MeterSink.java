@@ -0,0 +1,35 @@
+/**
+ * Abstract class that represents a destination for per unit time meter readings (see MeterRecorder).
+ * Readings are given as the amount consumed and generated by each meter during a unit time,
+ * in arrays indexed by meter number (see MeterSet). Arrays are reused between unit times,
+ * so sinks must copy any values they keep.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public abstract class MeterSink {
+
+	/**
+	 * Called once before any readings are recorded.
+	 * @param  meters Meters that readings are indexed by
+	 */
+	public void start(MeterSet meters) {
+		// Nothing to prepare by default
+	}
+
+	/**
+	 * Record the readings of a unit time.
+	 * @param  tick Unit time the readings are of, counting from 0 at the start of recording
+	 * @param  consumed Amount consumed by each meter during the unit time
+	 * @param  generated Amount generated by each meter during the unit time
+	 */
+	public abstract void record(int tick, int[] consumed, int[] generated);
+
+	/**
+	 * Called once after the last readings are recorded.
+	 */
+	public void finish() {
+		// Nothing to complete by default
+	}
+
+}
@@ -43,8 +43,8 @@ public class NightLight extends Appliance {
 		
 		// Define Appliance tasks on object instantiation
 		// An exception is thrown if the task method does not exist
-		addTask(new ApplianceTask("TurnOnNightLight", getMethod("turnOn"), false, false));
-		addTask(new ApplianceTask("TurnOffNightLight", getMethod("turnOff"), false, true));
+		addTask(new ApplianceTask("TurnOnNightLight", Appliance::turnOn, false, false));
+		addTask(new ApplianceTask("TurnOffNightLight", Appliance::turnOff, false, true));
 	}
 
 	@Override
@@ -0,0 +1,120 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class of SimulationEngine that spreads houses over a pool of threads.
+ * Houses are split into groups that share no objects (see HouseGroup) and every group
+ * is stepped on the pool each unit time. All houses finish a unit time before the next starts.
+ * Output logged by each house is buffered and written in house order once the unit
+ * time is complete, so output matches the SequentialEngine exactly.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class ParallelEngine extends SimulationEngine {
+	// Engine properties
+	private int threadCount;
+
+	/**
+	 * Constructor for ParallelEngine.
+	 * @param  threadCount Maximum number of threads to step houses on [> 0]
+	 */
+	public ParallelEngine(int threadCount) {
+		if (threadCount < 1) {
+			Logger.error("Thread count must be positive");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * @return  Value of threadCount
+	 */
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	@Override
+	public void run(ArrayList<House> houses, int simLength) {
+		ArrayList<HouseGroup> groups = HouseGroup.partition(houses);
+		// Output and failures of each house for the current unit time, indexed by house
+		LogBuffer[] buffers = new LogBuffer[houses.size()];
+		RuntimeException[] failures = new RuntimeException[houses.size()];
+
+		// Create a reusable step for each group
+		ArrayList<Callable<Void>> steps = new ArrayList<Callable<Void>>(groups.size());
+		for (HouseGroup group : groups) {
+			steps.add(new GroupStep(group, buffers, failures));
+		}
+
+		// Never start more threads than there are groups to step
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threadCount, groups.size()));
+		try {
+			clock.start();
+			// Loop for simulation length
+			for (int i = 0; i < simLength; i++) {
+				// Simulate a unit time passing for each group, waiting for all to finish
+				waitForAll(pool.invokeAll(steps));
+				writeBufferedOutput(buffers, failures);
+				notifyListeners(houses, i + 1);
+				// Wait for next unit time to slow down simulation 
+				clock.awaitTick(i + 1);
+			}
+		}
+		catch (InterruptedException e) {
+			Logger.error("Simulation interrupted whilst waiting for houses");
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Wait for all steps of a unit time, rethrowing any unexpected failure.
+	 * @param  futures Futures of submitted steps
+	 * @throws  InterruptedException If interrupted whilst waiting
+	 */
+	private static void waitForAll(List<Future<Void>> futures) throws InterruptedException {
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			}
+			catch (ExecutionException e) {
+				// Steps catch house failures so this is a failure of the step itself
+				Logger.error(String.format("House step failed unexpectedly\nCaught exception: %s", e.getCause()));
+			}
+		}
+	}
+
+	/**
+	 * Step that simulates a unit time passing for each house in a group.
+	 */
+	private static class GroupStep implements Callable<Void> {
+		private HouseGroup group;
+		private LogBuffer[] buffers;
+		private RuntimeException[] failures;
+
+		/**
+		 * Constructor for GroupStep.
+		 * @param  group Group of houses to step in order
+		 * @param  buffers Array to place buffered output of each house
+		 * @param  failures Array to place the failure of a house
+		 */
+		GroupStep(HouseGroup group, LogBuffer[] buffers, RuntimeException[] failures) {
+			this.group = group;
+			this.buffers = buffers;
+			this.failures = failures;
+		}
+
+		@Override
+		public Void call() {
+			stepGroup(group, buffers, failures);
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,311 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * Class of MeterSink that tracks which houses draw the most electricity.
+ * Each unit time, the electric meters consuming the most are found with a min-heap
+ * bounded to the K largest, and kept in a ring holding the latest window of unit times.
+ * The top K over the window is found from these alone: a house not in the top K of the
+ * unit time of its peak is beaten by K others during the window, so cannot be in the top K of it.
+ * Memory is O(window * K) however many houses are simulated.
+ *
+ * At the end of each window the top K over it is output after the day reports.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class PeakDemandTracker extends MeterSink {
+	// Order of peaks, largest first then by meter so ties are always listed the same way
+	private final static Comparator<Peak> LARGEST_FIRST = new Comparator<Peak>() {
+		@Override
+		public int compare(Peak a, Peak b) {
+			if (a.consumed != b.consumed) {
+				return (a.consumed > b.consumed) ? -1 : 1;
+			}
+			return Integer.compare(a.meter, b.meter);
+		}
+	};
+
+	private int peakCount;
+	private int windowLength;
+	private MeterSet meters;
+	private int[] electricMeters = new int[0]; // indexes of electric meters
+
+	// Min-heap of the current unit time, smallest kept peak at the top
+	private int[] heapMeters;
+	private int[] heapConsumed;
+	private int heapSize;
+
+	// Top peaks of each unit time of the window, largest first, indexed by slot (unit time % window)
+	private int[][] windowMeters;
+	private int[][] windowConsumed;
+	private int[] windowSizes;
+	private int tickCount = 0;
+
+	/**
+	 * Constructor for PeakDemandTracker.
+	 * Use a window of a day.
+	 * @param  peakCount Number of houses to track [> 0]
+	 */
+	public PeakDemandTracker(int peakCount) {
+		this(peakCount, House.DAY_LENGTH);
+	}
+
+	/**
+	 * Constructor for PeakDemandTracker.
+	 * @param  peakCount Number of houses to track [> 0]
+	 * @param  windowLength Unit times of the sliding window [> 0]
+	 */
+	public PeakDemandTracker(int peakCount, int windowLength) {
+		if (peakCount < 1) {
+			Logger.error("Peak demand count must be positive");
+		}
+		if (windowLength < 1) {
+			Logger.error("Peak demand window must be positive");
+		}
+		this.peakCount = peakCount;
+		this.windowLength = windowLength;
+		heapMeters = new int[peakCount];
+		heapConsumed = new int[peakCount];
+		windowMeters = new int[windowLength][peakCount];
+		windowConsumed = new int[windowLength][peakCount];
+		windowSizes = new int[windowLength];
+	}
+
+	@Override
+	public void start(MeterSet meters) {
+		this.meters = meters;
+		ArrayList<Integer> electric = new ArrayList<Integer>();
+		for (int m = 0; m < meters.size(); m++) {
+			if (meters.getType(m).equals(UtilityType.ELECTRIC.asString())) {
+				electric.add(m);
+			}
+		}
+		electricMeters = new int[electric.size()];
+		for (int i = 0; i < electricMeters.length; i++) {
+			electricMeters[i] = electric.get(i);
+		}
+	}
+
+	@Override
+	public void record(int tick, int[] consumed, int[] generated) {
+		// Keep the largest peakCount meters, replacing the smallest kept when beaten
+		heapSize = 0;
+		for (int m : electricMeters) {
+			if (heapSize < peakCount) {
+				heapMeters[heapSize] = m;
+				heapConsumed[heapSize] = consumed[m];
+				siftUp(heapSize++);
+			}
+			else if (isSmaller(heapMeters[0], heapConsumed[0], m, consumed[m])) {
+				heapMeters[0] = m;
+				heapConsumed[0] = consumed[m];
+				siftDown(0);
+			}
+		}
+
+		// Store largest first by emptying the heap from the back of the slot
+		int slot = tickCount % windowLength;
+		windowSizes[slot] = heapSize;
+		while (heapSize > 0) {
+			windowMeters[slot][heapSize - 1] = heapMeters[0];
+			windowConsumed[slot][heapSize - 1] = heapConsumed[0];
+			heapSize--;
+			heapMeters[0] = heapMeters[heapSize];
+			heapConsumed[0] = heapConsumed[heapSize];
+			siftDown(0);
+		}
+		tickCount++;
+
+		if (tickCount % windowLength == 0) {
+			outputReport();
+		}
+	}
+
+	/**
+	 * @param  meterA Meter of peak A
+	 * @param  consumedA Consumed of peak A
+	 * @param  meterB Meter of peak B
+	 * @param  consumedB Consumed of peak B
+	 * @return  True if peak A ranks below peak B
+	 */
+	private static boolean isSmaller(int meterA, int consumedA, int meterB, int consumedB) {
+		return (consumedA != consumedB) ? consumedA < consumedB : meterA > meterB;
+	}
+
+	/**
+	 * Move a heap entry up until its parent is smaller.
+	 * @param  i Index of entry
+	 */
+	private void siftUp(int i) {
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (!isSmaller(heapMeters[i], heapConsumed[i], heapMeters[parent], heapConsumed[parent])) {
+				return;
+			}
+			swap(i, parent);
+			i = parent;
+		}
+	}
+
+	/**
+	 * Move a heap entry down until its children are larger.
+	 * @param  i Index of entry
+	 */
+	private void siftDown(int i) {
+		while (true) {
+			int smallest = i;
+			for (int child = 2 * i + 1; child <= 2 * i + 2 && child < heapSize; child++) {
+				if (isSmaller(heapMeters[child], heapConsumed[child], heapMeters[smallest], heapConsumed[smallest])) {
+					smallest = child;
+				}
+			}
+			if (smallest == i) {
+				return;
+			}
+			swap(i, smallest);
+			i = smallest;
+		}
+	}
+
+	/**
+	 * @param  i Index of heap entry
+	 * @param  j Index of heap entry
+	 */
+	private void swap(int i, int j) {
+		int meter = heapMeters[i];
+		int consumed = heapConsumed[i];
+		heapMeters[i] = heapMeters[j];
+		heapConsumed[i] = heapConsumed[j];
+		heapMeters[j] = meter;
+		heapConsumed[j] = consumed;
+	}
+
+	/**
+	 * @return  Number of unit times recorded
+	 */
+	public int getTickCount() {
+		return tickCount;
+	}
+
+	/**
+	 * Get the houses drawing the most electricity in the latest unit time.
+	 * @return  Up to peakCount peaks, largest first
+	 */
+	public ArrayList<Peak> getLatestPeaks() {
+		ArrayList<Peak> peaks = new ArrayList<Peak>();
+		if (tickCount > 0) {
+			int slot = (tickCount - 1) % windowLength;
+			for (int i = 0; i < windowSizes[slot]; i++) {
+				peaks.add(new Peak(windowMeters[slot][i], windowConsumed[slot][i], tickCount - 1));
+			}
+		}
+		return peaks;
+	}
+
+	/**
+	 * Get the houses that drew the most electricity in a single unit time of the window.
+	 * Each house is listed once, at its largest peak.
+	 * @return  Up to peakCount peaks, largest first
+	 */
+	public ArrayList<Peak> getWindowPeaks() {
+		// Largest peak of each meter in the window, earliest if repeated
+		HashMap<Integer, Peak> meterPeaks = new HashMap<Integer, Peak>();
+		for (int tick = Math.max(0, tickCount - windowLength); tick < tickCount; tick++) {
+			int slot = tick % windowLength;
+			for (int i = 0; i < windowSizes[slot]; i++) {
+				Peak peak = meterPeaks.get(windowMeters[slot][i]);
+				if (peak == null || peak.consumed < windowConsumed[slot][i]) {
+					meterPeaks.put(windowMeters[slot][i], new Peak(windowMeters[slot][i], windowConsumed[slot][i], tick));
+				}
+			}
+		}
+		ArrayList<Peak> peaks = new ArrayList<Peak>(meterPeaks.values());
+		Collections.sort(peaks, LARGEST_FIRST);
+		while (peaks.size() > peakCount) {
+			peaks.remove(peaks.size() - 1);
+		}
+		return peaks;
+	}
+
+	/**
+	 * Output the peaks of the window in the style of a day report.
+	 */
+	private void outputReport() {
+		String columnFormat = "%12s ";
+		ArrayList<StringBuilder> reportLines = new ArrayList<StringBuilder>();
+		reportLines.add(new StringBuilder(String.format("Peak Electric demand - Unit time %d to %d",
+				tickCount - windowLength, tickCount - 1)));
+		reportLines.add(new StringBuilder(String.format(columnFormat + columnFormat + columnFormat + columnFormat,
+				"---", "House", "Electric", "Unit time")));
+		ArrayList<Peak> peaks = getWindowPeaks();
+		for (int i = 0; i < peaks.size(); i++) {
+			Peak peak = peaks.get(i);
+			reportLines.add(new StringBuilder(String.format(columnFormat + columnFormat + columnFormat + columnFormat,
+					String.format("{%d}", i + 1), peak.getHouseName(), peak.getConsumed(), peak.getTick())));
+		}
+
+		// Wrap report to the width of the heading row
+		StringBuilder wrapper = new StringBuilder();
+		for (int c = 0; c < reportLines.get(1).length() - 1; c++) {
+			wrapper.append('*');
+		}
+		Logger.message(wrapper.toString());
+		for (StringBuilder line : reportLines) {
+			Logger.message(line.toString());
+		}
+		Logger.message(wrapper.toString());
+	}
+
+	/**
+	 * Class representing the electricity drawn by a house in a unit time.
+	 */
+	public class Peak {
+		private int meter;
+		private int consumed;
+		private int tick;
+
+		/**
+		 * Constructor for Peak.
+		 * @param  meter Index of electric meter
+		 * @param  consumed Amount consumed during unit time
+		 * @param  tick Unit time, counting from the start of recording
+		 */
+		Peak(int meter, int consumed, int tick) {
+			this.meter = meter;
+			this.consumed = consumed;
+			this.tick = tick;
+		}
+
+		/**
+		 * @return  Returns the value of meter
+		 */
+		public int getMeter() {
+			return meter;
+		}
+
+		/**
+		 * @return  Name of house of meter
+		 */
+		public String getHouseName() {
+			return meters.getHouseName(meter);
+		}
+
+		/**
+		 * @return  Returns the value of consumed
+		 */
+		public int getConsumed() {
+			return consumed;
+		}
+
+		/**
+		 * @return  Returns the value of tick
+		 */
+		public int getTick() {
+			return tick;
+		}
+	}
+
+}
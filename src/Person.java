@@ -1,4 +1,5 @@
 import java.util.ArrayList;
+import java.util.TreeMap;
 
 /**
  * Abstract class that represents a Person.
@@ -6,13 +7,13 @@ import java.util.ArrayList;
  * ECS Smart Meter - COMP1202 Coursework
  * @author dsj1n15
  */
-public abstract class Person {
+public abstract class Person implements Cloneable {
 	private String name;
 	private int age;
 	private String gender;
 	
 	// Initialise ongoing variables
-	private ArrayList<PersonTask> tasks  = new ArrayList<PersonTask>();
+	private TreeMap<Integer, PersonTask> tasks = new TreeMap<Integer, PersonTask>(); // by set time, one per time
 
 	/**
 	 * Constructor for Person class.
@@ -78,7 +79,8 @@ public abstract class Person {
 		else {
 			Logger.message(String.format("Task '%s' added to '%s' for time '%d'", 
 					task.getTaskName(), name, task.getSetTime()));
-			tasks.add(task);
+			tasks.put(task.getSetTime(), task);
+			task.getTargetHouse().scheduleTask(this, task.getSetTime());
 		}
 	}
 	
@@ -92,7 +94,7 @@ public abstract class Person {
 		}
 		else {
 			// Attempt to remove task, returns true if successful
-			if (tasks.remove(task)) {
+			if (tasks.values().remove(task)) {
 				Logger.message(String.format("Task '%s' removed from '%s'", task.getName(), name));
 			}
 			else {
@@ -101,19 +103,43 @@ public abstract class Person {
 		}
 	}
 
+	/**
+	 * Get the tasks that can still run, those not set before their target house's current time.
+	 * @return  Pending tasks, earliest first
+	 */
+	ArrayList<PersonTask> getPendingTasks() {
+		ArrayList<PersonTask> pending = new ArrayList<PersonTask>();
+		for (PersonTask task : tasks.values()) {
+			if (task.getSetTime() >= task.getTargetHouse().getTime()) {
+				pending.add(task);
+			}
+		}
+		return pending;
+	}
+
+	/**
+	 * Remove all tasks without logging, before restoring tasks from a saved copy.
+	 */
+	void clearTasks() {
+		tasks.clear();
+	}
+
+	/**
+	 * Restore a task from a saved copy without logging.
+	 * @param  task Task to restore
+	 */
+	void restoreTask(PersonTask task) {
+		tasks.put(task.getSetTime(), task);
+		task.getTargetHouse().scheduleTask(this, task.getSetTime());
+	}
+
 	/**
 	 * Finds the task a person is doing at a time
 	 * @param  time Time 
 	 * @return  Task at time, null if not found
 	 */
 	public PersonTask getTaskAtTime(int time) {
-		// Search for task time
-		for (PersonTask task : tasks) {
-			if (task.getSetTime() == time) {
-				return task;
-			}
-		}	
-		return null; // task not found
+		return tasks.get(time); // null if not found
 	}
 	
 	/**
@@ -121,14 +147,11 @@ public abstract class Person {
 	 * @param  currentHouse House timePasses has been called from
 	 */
 	public void timePasses(House currentHouse) {
-		// Process each task, allow multiple tasks to be called in one unit time
-		for (PersonTask task : tasks) {
-			// If task belongs to calling house and current time is now
-			if (currentHouse == task.getTargetHouse() && currentHouse.getTime() == task.getSetTime()) {
-				task.doTask(this); // attempt to do task
-				tasks.remove(task);
-				break;
-			}
+		// Only one task can be set for a time, do it if it belongs to calling house
+		PersonTask task = tasks.get(currentHouse.getTime());
+		if (task != null && task.getTargetHouse() == currentHouse) {
+			task.doTask(this); // attempt to do task
+			tasks.remove(task.getSetTime());
 		}
 	}
 	
@@ -169,4 +192,26 @@ public abstract class Person {
 		}
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Create a copy of the person and their tasks, see HouseCopier.
+	 * @param  copier Copier holding copies already made
+	 * @return  Copy of person
+	 */
+	Person copy(HouseCopier copier) {
+		Person copy;
+		try {
+			copy = (Person) clone();
+		}
+		catch (CloneNotSupportedException e) {
+			Logger.error(String.format("Person could not be copied\nCaught exception: %s", e));
+			return null;
+		}
+		copier.register(this, copy);
+		copy.tasks = new TreeMap<Integer, PersonTask>();
+		for (PersonTask task : tasks.values()) {
+			copy.tasks.put(task.getSetTime(), task.copy(copier));
+		}
+		return copy;
+	}
+
+}
@@ -1,13 +1,10 @@
-import java.util.ArrayList;
-import java.util.Iterator;
-
 /**
  * Class that represents a person's task.
  * 
  * ECS Smart Meter - COMP1202 Coursework
  * @author dsj1n15
  */
-public class PersonTask {
+public class PersonTask implements Cloneable {
 	private int setTime;
 	private House targetHouse;
 	private String taskName;
@@ -64,24 +61,28 @@ public class PersonTask {
 	 * @return  True or false respective to if the task ran successfully
 	 */
 	public boolean doTask(Person person) {
-		// Find appliances not in use with task name
-		ArrayList<Appliance> appliances = searchAppliancesForTask(targetHouse.getAppliancesIterator());
+		// Find appliances offering task from the index of the target house
+		House.TaskOffers offers = targetHouse.getTaskOffers(taskName);
+		// Only appliances in the state their task requires are available
+		long available = (offers != null) ? offers.getAvailable() : 0;
+		boolean found = (available != 0);
 		
-		// Check if any appliances were found
-		if (appliances.size() > 0) {
-			
-			// Target first available appliance
-			Appliance targetAppliance = null;
-			ApplianceTask task = null;
-			// Search if person can do task for available appliances
-			for (Appliance searchAppliance : appliances) {
-				task = searchAppliance.getTaskFromName(taskName);
-				// If task can be done assign it as the target
-				if (person.canDoTask(task)) {
-					targetAppliance = searchAppliance;
-					break; // target found, exit loop
-				}
+		// Target first available appliance
+		Appliance targetAppliance = null;
+		ApplianceTask task = null;
+		// Search if person can do task for available appliances, in the order they were added
+		for (; available != 0; available &= available - 1) {
+			int i = Long.numberOfTrailingZeros(available);
+			// If task can be done assign it as the target
+			if (person.canDoTask(offers.getTask(i))) {
+				targetAppliance = offers.getAppliance(i);
+				task = offers.getTask(i);
+				break; // target found, exit loop
 			}
+		}
+
+		// Check if any appliances were found
+		if (found) {
 			
 			// Check if appliance was found
 			if (targetAppliance != null) {
@@ -109,31 +110,21 @@ public class PersonTask {
 	}
 
 	/**
-	 * Search through an appliance list for appliances that are available for a task. 
-	 * @param  itrAppliances Iterator of type Appliance to search through 
-	 * @return  Appliances found in itrAppliances that match search criteria
+	 * Create a copy of the task targeting the copy of its house, see HouseCopier.
+	 * @param  copier Copier holding copies already made
+	 * @return  Copy of task
 	 */
-	public ArrayList<Appliance> searchAppliancesForTask(Iterator<Appliance> itrAppliances) {
-		ArrayList<Appliance> matchedAppliances = new ArrayList<Appliance>();
-		
-		// Loop through all appliances
-		while (itrAppliances.hasNext()) {
-			Appliance appliance = itrAppliances.next();
-			
-			// If appliance does not contain task, check next appliance
-			ApplianceTask task = appliance.getTaskFromName(taskName);
-			if (task == null) {
-				continue; // task not found, loop to next
-			}
-			
-			// If requiredState is not set or states match 
-			if (task.getRequiredState() == null || appliance.getCurrentState() == task.getRequiredState()) {
-				// Add to matched appliances
-				matchedAppliances.add(appliance);
-			}			
+	PersonTask copy(HouseCopier copier) {
+		PersonTask copy;
+		try {
+			copy = (PersonTask) clone();
 		}
-		
-		return matchedAppliances;
+		catch (CloneNotSupportedException e) {
+			Logger.error(String.format("Person task could not be copied\nCaught exception: %s", e));
+			return null;
+		}
+		copy.targetHouse = copier.copyOf(targetHouse);
+		return copy;
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class representing a stream of pseudorandom numbers owned by a single object.
+ * Uses the SplitMix64 generator, so each stream is a single long of state that can be
+ * saved and restored, and streams with different seeds are statistically independent.
+ * Unlike Math.random, no state is shared between streams so threads never contend.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class RandomStream {
+	// Increment of state per number generated (odd, fractional part of the golden ratio)
+	private final static long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	// Scale of a 53 bit integer to a double in [0, 1)
+	private final static double DOUBLE_UNIT = 0x1.0p-53;
+	// Source of seeds for streams created without one
+	private final static AtomicLong seeder = new AtomicLong(mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+	private long state;
+
+	/**
+	 * Constructor for RandomStream.
+	 * Use a seed that differs every time a stream is created.
+	 */
+	public RandomStream() {
+		this(newSeed());
+	}
+
+	/**
+	 * Constructor for RandomStream.
+	 * @param  seed Seed of stream, streams with equal seeds generate equal numbers
+	 */
+	public RandomStream(long seed) {
+		this.state = seed;
+	}
+
+	/**
+	 * @return  Next pseudorandom long
+	 */
+	public long nextLong() {
+		state += GOLDEN_GAMMA;
+		return mix64(state);
+	}
+
+	/**
+	 * @return  Next pseudorandom double [0 <= n < 1]
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	/**
+	 * @return  Current state, restore with setState to continue the stream
+	 */
+	long getState() {
+		return state;
+	}
+
+	/**
+	 * @param  state State as returned by getState
+	 */
+	void setState(long state) {
+		this.state = state;
+	}
+
+	/**
+	 * Get a seed that differs every time it is called, e.g. when no run seed is given.
+	 * @return  New seed
+	 */
+	public static long newSeed() {
+		return mix64(seeder.getAndAdd(GOLDEN_GAMMA));
+	}
+
+	/**
+	 * Derive an independent seed from a seed and an index, e.g. the seed of a run in an ensemble.
+	 * @param  seed Seed to derive from
+	 * @param  index Index of derived seed
+	 * @return  Derived seed
+	 */
+	public static long deriveSeed(long seed, int index) {
+		return mix64(seed + GOLDEN_GAMMA * (index + 1L));
+	}
+
+	/**
+	 * Derive the seed of an appliance's stream from the seed of a run and the appliance's position.
+	 * @param  seed Seed of run
+	 * @param  houseIndex Index of house in simulation
+	 * @param  applianceIndex Index of appliance in house
+	 * @return  Seed of appliance stream
+	 */
+	public static long deriveSeed(long seed, int houseIndex, int applianceIndex) {
+		return deriveSeed(deriveSeed(seed, houseIndex), applianceIndex);
+	}
+
+	/**
+	 * Scramble the bits of a value (MurmurHash3 finaliser, variant 13).
+	 * @param  z Value to scramble
+	 * @return  Scrambled value
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -0,0 +1,53 @@
+/**
+ * Enumerated type that represents the periods meter readings are rolled up into (see MeterRollup).
+ * Each period has a length in unit times and a number of its latest buckets to retain.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public enum RollupPeriod {
+	// Declare enumeration types [4 unit times to an hour]
+	HOUR("Hour", House.DAY_LENGTH / 24, 24 * 7),
+	DAY("Day", House.DAY_LENGTH, 90),
+	WEEK("Week", House.DAY_LENGTH * 7, 52),
+	MONTH("Month", House.DAY_LENGTH * 30, 24);
+
+	// Enumeration properties
+	private String stringType; // as a string type
+	private int length; // unit times per bucket
+	private int retained; // latest buckets kept
+
+	/**
+	 * Constructor for RollupPeriod enumeration constructor.
+	 * @param  stringType Period as a string
+	 * @param  length Unit times per bucket
+	 * @param  retained Number of latest buckets kept
+	 */
+	RollupPeriod(String stringType, int length, int retained) {
+		this.stringType = stringType;
+		this.length = length;
+		this.retained = retained;
+	}
+
+	/**
+	 * @return  Returns the value of stringType
+	 */
+	public String asString() {
+		return stringType;
+	}
+
+	/**
+	 * @return  Returns the value of length
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * @return  Returns the value of retained
+	 */
+	public int getRetained() {
+		return retained;
+	}
+
+}
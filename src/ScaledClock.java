@@ -0,0 +1,45 @@
+/**
+ * Class of FixedRateClock that runs simulated time at a multiple of real time.
+ * e.g. a factor of 900 runs one unit time (15 minutes) every real second.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class ScaledClock extends FixedRateClock {
+	/**
+	 * Real time represented by a unit time in milliseconds (15 minutes)
+	 */
+	public final static long UNIT_TIME_MILLIS = 15 * 60 * 1000;
+
+	// Clock properties
+	private double factor;
+
+	/**
+	 * Constructor for ScaledClock.
+	 * @param  factor Simulated time passed per real time passed [> 0]
+	 */
+	public ScaledClock(double factor) {
+		super(UNIT_TIME_MILLIS / checkFactor(factor));
+		this.factor = factor;
+	}
+
+	/**
+	 * Check the factor is sensible before it is used.
+	 * @param  factor Factor to check
+	 * @return  Value of factor
+	 */
+	private static double checkFactor(double factor) {
+		if (factor <= 0) {
+			Logger.error("Clock scale factor must be positive");
+		}
+		return factor;
+	}
+
+	/**
+	 * @return  Value of factor
+	 */
+	public double getFactor() {
+		return factor;
+	}
+
+}
@@ -0,0 +1,26 @@
+import java.util.ArrayList;
+
+/**
+ * Class of SimulationEngine that steps every house on a single thread.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class SequentialEngine extends SimulationEngine {
+
+	@Override
+	public void run(ArrayList<House> houses, int simLength) {
+		clock.start();
+		// Loop for simulation length
+		for (int i = 0; i < simLength; i++) {
+			// Simulate a unit time passing for each house
+			for (House house : houses) {
+				house.timePasses();
+			}
+			notifyListeners(houses, i + 1);
+			// Wait for next unit time to slow down simulation 
+			clock.awaitTick(i + 1);
+		}
+	}
+
+}
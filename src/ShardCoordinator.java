@@ -0,0 +1,418 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Class that splits the houses of a configuration over worker processes (see ShardWorker).
+ * The configuration is split into shards of whole 'House:' blocks without being read, keeping
+ * together blocks connected by object references. Each shard is sent to a worker JVM over its
+ * standard input. The workers simulate their houses unpaced and write output as Logger records,
+ * which are merged in house order a unit time at a time and paced by the coordinator's clock.
+ * Output is identical to simulating the whole configuration in one process.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class ShardCoordinator {
+	// Maximum sections of output held per worker before the worker is made to wait
+	private final static int SECTION_QUEUE_SIZE = 256;
+	// Label of errors written by workers
+	private final static String ERROR_LABEL = "[ERROR] ";
+
+	// Coordinator properties
+	private int shardCount;
+	private ArrayList<String> workerOptions;
+	private SimulationClock clock = new FixedRateClock(SimulationEngine.DEFAULT_PERIOD_MILLIS);
+
+	/**
+	 * Constructor for ShardCoordinator.
+	 * @param  shardCount Maximum number of worker processes [> 0]
+	 * @param  workerOptions Options passed to every worker e.g. engine=tick
+	 */
+	public ShardCoordinator(int shardCount, ArrayList<String> workerOptions) {
+		if (shardCount < 1) {
+			Logger.error("Shard count must be positive");
+		}
+		this.shardCount = shardCount;
+		this.workerOptions = workerOptions;
+	}
+
+	/**
+	 * @return  Value of clock
+	 */
+	public SimulationClock getClock() {
+		return clock;
+	}
+
+	/**
+	 * @param  clock Clock to pace unit times of merged output with
+	 */
+	public void setClock(SimulationClock clock) {
+		if (clock == null) {
+			Logger.error("Simulation clock cannot be null");
+		}
+		this.clock = clock;
+	}
+
+	/**
+	 * Simulate a configuration file over worker processes.
+	 * @param  filename Filename of configuration file, null for the default
+	 * @param  simLength Unit time to run the simulation for
+	 */
+	public void run(String filename, int simLength) {
+		if (filename == null) {
+			filename = ConfigurationReader.DEFAULT_FILENAME;
+		}
+		ArrayList<Shard> shards = split(readLines(filename), shardCount);
+
+		Logger.message(String.format("CONFIGURATION PARSING - '%s'", filename));
+		Logger.message("---------------------------------");
+		ArrayList<Worker> workers = new ArrayList<Worker>(shards.size());
+		try {
+			for (Shard shard : shards) {
+				workers.add(new Worker(shard, simLength));
+			}
+
+			// Configuration output is the first section, then a section per unit time
+			mergeSection(workers);
+			Logger.message("\nSIMULATION");
+			Logger.message("---------------------------------");
+			clock.start();
+			for (int i = 0; i < simLength; i++) {
+				mergeSection(workers);
+				// Wait for next unit time to slow down simulation
+				clock.awaitTick(i + 1);
+			}
+
+			for (Worker worker : workers) {
+				worker.waitForSuccess();
+			}
+		}
+		finally {
+			for (Worker worker : workers) {
+				worker.process.destroy();
+			}
+		}
+	}
+
+	/**
+	 * Write the next section of output of every worker in order.
+	 * @param  workers Workers in house order
+	 */
+	private static void mergeSection(ArrayList<Worker> workers) {
+		for (Worker worker : workers) {
+			Section section = worker.nextSection();
+			for (String record : section.records) {
+				writeRecord(record);
+			}
+			if (!section.complete) {
+				// Output stopped early, pass on the failure
+				worker.waitForSuccess();
+				Logger.error(String.format("Shard starting at house %d stopped unexpectedly", worker.shard.firstHouse));
+			}
+		}
+	}
+
+	/**
+	 * Write a message, warning or log file record as output.
+	 * @param  record Record line written by a worker
+	 */
+	private static void writeRecord(String record) {
+		char type = record.charAt(0);
+		if (type == Logger.MESSAGE_RECORD) {
+			Logger.writeMessage(record.substring(1));
+		}
+		else if (type == Logger.WARNING_RECORD) {
+			Logger.writeWarning(record.substring(1));
+		}
+		else if (type == Logger.LOG_RECORD) {
+			Logger.writeLogMessage(record.substring(1));
+		}
+		else {
+			Logger.error(String.format("Shard record '%s' not recognised", record));
+		}
+	}
+
+	/**
+	 * Read all lines of a configuration file.
+	 * @param  filename Filename of configuration file
+	 * @return  Lines of file
+	 */
+	private static ArrayList<String> readLines(String filename) {
+		ArrayList<String> lines = new ArrayList<String>();
+		try {
+			BufferedReader reader = new BufferedReader(new FileReader(filename));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					lines.add(line);
+				}
+			}
+			finally {
+				reader.close();
+			}
+		}
+		catch (IOException e) {
+			Logger.error(String.format("'%s' not found", filename));
+		}
+		return lines;
+	}
+
+	/**
+	 * Split lines of a configuration into at most shardCount shards of whole houses.
+	 * A house that retrieves an object reference is kept in the same shard as the house
+	 * assigning it, along with every house between them. Houses are spread as evenly as
+	 * these groups allow. Lines before the first house stay with the first shard.
+	 * @param  lines Lines of configuration
+	 * @param  shardCount Maximum number of shards [> 0]
+	 * @return  Shards in house order
+	 */
+	static ArrayList<Shard> split(ArrayList<String> lines, int shardCount) {
+		// Find the first line of each house, and houses that must share a shard with the next
+		ArrayList<Integer> houseStarts = new ArrayList<Integer>();
+		ArrayList<Boolean> joinNext = new ArrayList<Boolean>();
+		HashMap<String, Integer> assignedIn = new HashMap<String, Integer>();
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i);
+			if (ConfigurationReader.isHouseLine(line)) {
+				houseStarts.add(i);
+				joinNext.add(false);
+			}
+			int house = houseStarts.size() - 1;
+			String assigned = ConfigurationReader.getAssignedReference(line);
+			if (assigned != null) {
+				assignedIn.put(assigned, house);
+			}
+			String retrieved = ConfigurationReader.getRetrievedReference(line);
+			if (retrieved != null && assignedIn.containsKey(retrieved)) {
+				for (int h = assignedIn.get(retrieved); h < house; h++) {
+					joinNext.set(h, true);
+				}
+			}
+		}
+
+		ArrayList<Shard> shards = new ArrayList<Shard>();
+		int houseCount = houseStarts.size();
+		if (houseCount == 0) {
+			// Nothing to split, let the worker report the configuration as normal
+			shards.add(new Shard(lines, 0));
+			return shards;
+		}
+
+		// Cut after a house once enough houses are in earlier shards, unless joined to the next
+		int firstHouse = 0;
+		for (int h = 0; h < houseCount; h++) {
+			boolean last = (h == houseCount - 1);
+			long target = (long) (shards.size() + 1) * houseCount / shardCount;
+			if (last || (!joinNext.get(h) && h + 1 >= target)) {
+				int from = (firstHouse == 0) ? 0 : houseStarts.get(firstHouse);
+				int to = last ? lines.size() : houseStarts.get(h + 1);
+				shards.add(new Shard(new ArrayList<String>(lines.subList(from, to)), firstHouse));
+				firstHouse = h + 1;
+			}
+		}
+		return shards;
+	}
+
+	/**
+	 * Class holding the lines of a shard of configuration.
+	 */
+	static class Shard {
+		private ArrayList<String> lines;
+		private int firstHouse;
+
+		/**
+		 * Constructor for Shard.
+		 * @param  lines Lines of configuration
+		 * @param  firstHouse Index of first house of shard in the whole configuration
+		 */
+		Shard(ArrayList<String> lines, int firstHouse) {
+			this.lines = lines;
+			this.firstHouse = firstHouse;
+		}
+	}
+
+	/**
+	 * Class holding the records written by a worker up to a marker record.
+	 */
+	private static class Section {
+		private ArrayList<String> records = new ArrayList<String>();
+		private boolean complete = false; // false if output ended before a marker
+	}
+
+	/**
+	 * Class representing a running worker process and the threads serving its streams.
+	 */
+	private class Worker {
+		private Shard shard;
+		private Process process;
+		private BlockingQueue<Section> sections = new ArrayBlockingQueue<Section>(SECTION_QUEUE_SIZE);
+		private StringBuffer errorOutput = new StringBuffer();
+		private Thread errorReader;
+
+		/**
+		 * Constructor for Worker.
+		 * Start the worker process and threads to write its shard and read its output.
+		 * @param  shard Shard to simulate
+		 * @param  simLength Unit time to run the simulation for
+		 */
+		Worker(Shard shard, int simLength) {
+			this.shard = shard;
+			ArrayList<String> command = new ArrayList<String>();
+			command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			command.add(ShardWorker.class.getName());
+			command.add(String.valueOf(shard.firstHouse));
+			command.add(String.valueOf(simLength));
+			command.addAll(workerOptions);
+			try {
+				process = new ProcessBuilder(command).start();
+			}
+			catch (IOException e) {
+				Logger.error(String.format("Shard worker could not be started\nCaught exception: %s", e));
+			}
+			startDaemon(new ShardWriter());
+			startDaemon(new SectionReader());
+			errorReader = startDaemon(new ErrorReader());
+		}
+
+		/**
+		 * @return  Next section of output, waiting until it is complete or output has ended
+		 */
+		Section nextSection() {
+			try {
+				return sections.take();
+			}
+			catch (InterruptedException e) {
+				Logger.error("Simulation interrupted whilst waiting for shards");
+				return null;
+			}
+		}
+
+		/**
+		 * Wait for the worker to exit, passing on its error if it failed.
+		 */
+		void waitForSuccess() {
+			int exitCode = 0;
+			try {
+				exitCode = process.waitFor();
+				errorReader.join();
+			}
+			catch (InterruptedException e) {
+				Logger.error("Simulation interrupted whilst waiting for shards");
+			}
+			if (exitCode != 0) {
+				// Pass on the worker's error as if it happened here, it has already been logged
+				String error = errorOutput.toString();
+				int start = error.indexOf(ERROR_LABEL);
+				if (start >= 0) {
+					int end = error.indexOf("\n\tat ", start);
+					throw new RuntimeException(error.substring(start, (end >= 0) ? end : error.length()).trim());
+				}
+				Logger.error(String.format("Shard starting at house %d failed\n%s", shard.firstHouse, error));
+			}
+		}
+
+		/**
+		 * @param  task Task to run on a daemon thread
+		 * @return  Started thread
+		 */
+		private Thread startDaemon(Runnable task) {
+			Thread thread = new Thread(task, String.format("Shard %d", shard.firstHouse));
+			thread.setDaemon(true);
+			thread.start();
+			return thread;
+		}
+
+		/**
+		 * Task writing the shard's configuration to the worker's standard input.
+		 */
+		private class ShardWriter implements Runnable {
+			@Override
+			public void run() {
+				try {
+					Writer writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
+					for (String line : shard.lines) {
+						writer.write(line);
+						writer.write('\n');
+					}
+					writer.close();
+				}
+				catch (IOException e) {
+					// Worker stopped reading, its failure is reported through its output
+				}
+			}
+		}
+
+		/**
+		 * Task reading the worker's standard output into sections.
+		 */
+		private class SectionReader implements Runnable {
+			@Override
+			public void run() {
+				Section section = new Section();
+				try {
+					BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+					String record;
+					while ((record = reader.readLine()) != null) {
+						if (!record.isEmpty() && record.charAt(0) == Logger.MARKER_RECORD) {
+							section.complete = true;
+							sections.put(section);
+							section = new Section();
+						}
+						else {
+							section.records.add(record);
+						}
+					}
+					reader.close();
+				}
+				catch (IOException e) {
+					// Treat as the end of output
+				}
+				catch (InterruptedException e) {
+					return;
+				}
+				// Output has ended, hand over anything left as an incomplete section
+				try {
+					sections.put(section);
+				}
+				catch (InterruptedException e) {
+					// Coordinator has stopped
+				}
+			}
+		}
+
+		/**
+		 * Task collecting the worker's standard error.
+		 */
+		private class ErrorReader implements Runnable {
+			@Override
+			public void run() {
+				try {
+					InputStream in = process.getErrorStream();
+					BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+					String line;
+					while ((line = reader.readLine()) != null) {
+						errorOutput.append(line).append('\n');
+					}
+					reader.close();
+				}
+				catch (IOException e) {
+					// Worker has stopped
+				}
+			}
+		}
+	}
+
+}
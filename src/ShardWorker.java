@@ -0,0 +1,91 @@
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+/**
+ * Class run as a worker process of a ShardCoordinator.
+ * Reads a shard of a configuration from standard input and simulates it as fast as possible.
+ * Messages and warnings are written to standard output as Logger records, with a marker
+ * record once the configuration is read and after each unit time so the coordinator can
+ * merge the output of all workers in house order. Errors stop the worker as normal.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class ShardWorker {
+	// Size of buffer between records and standard output
+	private final static int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * --- Main
+	 * @param  args : [0] = index of first house of shard in whole configuration, 
+	 *     [1] = simulation length, [2+] = options e.g. engine=tick
+	 */
+	public static void main(String[] args) {
+		// Only the coordinator writes to the command line and log file
+		PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 
+				OUTPUT_BUFFER_SIZE), false);
+		Logger.setRecordStream(out);
+		try {
+			run(args);
+		}
+		finally {
+			out.flush();
+		}
+	}
+
+	/**
+	 * Read and simulate the shard.
+	 * @param  args Arguments of main
+	 */
+	private static void run(String[] args) {
+		if (args.length < 2) {
+			Logger.error("Shard worker requires first house index and simulation length arguments");
+		}
+		int firstHouseIndex = 0;
+		int simLength = 0;
+		try {
+			firstHouseIndex = Integer.parseInt(args[0]);
+			simLength = Integer.parseInt(args[1]);
+		}
+		catch (NumberFormatException e) {
+			Logger.error("Shard worker arguments must be integers");
+		}
+		SimulationSettings settings = new SimulationSettings();
+		for (int i = 2; i < args.length; i++) {
+			settings.applyOption(args[i]);
+		}
+
+		// Parse the shard from standard input
+		ConfigurationReader reader = new ConfigurationReader(ConfigurationReader.STDIN_FILENAME);
+		ArrayList<House> houses = reader.getHouseFromFile();
+		if (houses.size() == 0) {
+			Logger.error("No houses found in file");
+		}
+		reader.closeReader();
+		Logger.writeRecord(Logger.MARKER_RECORD, "0");
+
+		// Simulate unpaced, the coordinator paces output
+		Simulation.seedAppliances(houses, settings.getSeed(), firstHouseIndex);
+		if (settings.getTariffFilename() != null) {
+			Tariff.load(settings.getTariffFilename()).apply(houses);
+		}
+		SimulationEngine engine = settings.createEngine();
+		engine.setClock(new UnpacedClock());
+		engine.addTickListener(new TickMarker());
+		engine.run(houses, simLength);
+	}
+
+	/**
+	 * Class of TickListener that writes a marker record after each unit time.
+	 */
+	private static class TickMarker extends TickListener {
+		@Override
+		public void tickComplete(ArrayList<House> houses, int elapsed) {
+			Logger.writeRecord(Logger.MARKER_RECORD, String.valueOf(elapsed));
+		}
+	}
+
+}
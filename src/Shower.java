@@ -18,7 +18,7 @@ public abstract class Shower extends Appliance {
 		
 		// Define Appliance tasks on object instantiation
 		// An exception is thrown if the task method does not exist
-		addTask(new ApplianceTask("Shower", getMethod("turnOn"), false, false));
+		addTask(new ApplianceTask("Shower", Appliance::turnOn, false, false));
 	}
 
 }
\ No newline at end of file
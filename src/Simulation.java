@@ -1,4 +1,6 @@
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 
 /**
  * Simulation class handling construction and simulation 
@@ -10,10 +12,11 @@ import java.util.ArrayList;
 public class Simulation {
 	private ArrayList<House> simHouses;
 	private int simLength;
+	private SimulationSettings settings;
 	
 	/**
 	 * --- Main
-	 * @param  args : [0] = filename, [1] = simulation length
+	 * @param  args : [0] = filename, [1] = simulation length, [2+] = options e.g. threads=4
 	 */
 	public static void main(String[] args) {
 		// Set up Logger
@@ -26,11 +29,15 @@ public class Simulation {
 		// --- Parse arguments
 		// If first argument is provided, use as filename, else use ConfigurationReader default
 		// If second argument is provided, use as simulation length, else use simulation length default
+		// Any further arguments are options applied to the simulation settings
 		String filename = null;
 		int simLength = House.DAY_LENGTH;
+		SimulationSettings settings = new SimulationSettings();
 		
 		if (args.length >= 3) {
-			Logger.error("Too many arguments. Correct usage is 'java Simulate [filename] [sim_length]'");
+			for (int i = 2; i < args.length; i++) {
+				settings.applyOption(args[i]);
+			}
 		}
 		if (args.length >= 2 ) {
 			// Use first argument as filename
@@ -48,16 +55,34 @@ public class Simulation {
 		}
 		
 		// --- Run simulation
-		new Simulation(filename, simLength);
+		if (settings.getShardCount() > 1) {
+			// Split houses over worker processes
+			settings.createShardCoordinator().run(filename, simLength);
+		}
+		else {
+			new Simulation(filename, simLength, settings);
+		}
 	}
 	
 	/**
 	 * Constructor for Simulation.
 	 * Reads in configuration for simulation and runs simulation immediately.
+	 * Use default settings.
 	 * @param  filename Filename of configuration file to read in
 	 * @param  simLength Length of unit time length to run the simulation
 	 */
 	public Simulation(String filename, int simLength) {
+		this(filename, simLength, new SimulationSettings());
+	}
+	
+	/**
+	 * Constructor for Simulation.
+	 * Reads in configuration for simulation and runs simulation immediately.
+	 * @param  filename Filename of configuration file to read in
+	 * @param  simLength Length of unit time length to run the simulation
+	 * @param  settings Settings to run the simulation with
+	 */
+	public Simulation(String filename, int simLength, SimulationSettings settings) {
 
 		// Read configuration into House object
 		ConfigurationReader reader;
@@ -82,6 +107,11 @@ public class Simulation {
 		
 		// Assign simulation properties
 		this.simLength = simLength;
+		this.settings = settings;
+		seedAppliances(simHouses, settings.getSeed());
+		if (settings.getTariffFilename() != null) {
+			Tariff.load(settings.getTariffFilename()).apply(simHouses);
+		}
 		
 		// Start a simulation
 		Logger.message("\nSIMULATION");
@@ -90,22 +120,113 @@ public class Simulation {
 	}
 	
 	/**
-	 * Run simulation on classes House ArrayList for classes simLength.
+	 * Give every appliance a random stream derived from the run seed and its position,
+	 * so a run can be repeated regardless of how houses are spread over threads.
+	 * Appliances in more than one house are seeded by their first position.
+	 * @param  houses Houses holding appliances to seed
+	 * @param  seed Seed of run
+	 */
+	static void seedAppliances(ArrayList<House> houses, long seed) {
+		seedAppliances(houses, seed, 0);
+	}
+
+	/**
+	 * Give every appliance a random stream derived from the run seed and its position,
+	 * where houses are part of a larger configuration (see ShardWorker).
+	 * @param  houses Houses holding appliances to seed
+	 * @param  seed Seed of run
+	 * @param  firstHouseIndex Index of the first house in the whole configuration
+	 */
+	static void seedAppliances(ArrayList<House> houses, long seed, int firstHouseIndex) {
+		IdentityHashMap<Appliance, Boolean> seeded = new IdentityHashMap<Appliance, Boolean>();
+		for (int h = 0; h < houses.size(); h++) {
+			Iterator<Appliance> itrAppliances = houses.get(h).getAppliancesIterator();
+			for (int a = 0; itrAppliances.hasNext(); a++) {
+				Appliance appliance = itrAppliances.next();
+				if (seeded.put(appliance, Boolean.TRUE) == null) {
+					appliance.setRandomStream(new RandomStream(RandomStream.deriveSeed(seed, firstHouseIndex + h, a)));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Run simulation on classes House ArrayList for classes simLength,
+	 * using the engine described by the classes settings.
+	 * When restoring from a checkpoint, only the remainder of simLength is run.
+	 * When an ensemble is set, many copies of the houses are run and summarised instead.
 	 */
 	public void simulate() {
-		// Loop for simulation length
-		for (int i = 0; i < simLength; i++) {
-			// Simulate a unit time passing for each house
-			for (House simHouse : simHouses) {
-				simHouse.timePasses();
+		int elapsed = 0;
+		if (settings.getRestoreFilename() != null) {
+			elapsed = Checkpoint.load(simHouses, settings.getRestoreFilename());
+			Logger.message(String.format("Restored checkpoint '%s' at time '%d'", settings.getRestoreFilename(), elapsed));
+		}
+
+		// Summarise many runs instead of simulating one
+		if (settings.getEnsembleRuns() > 0) {
+			settings.createEnsembleRunner(simHouses).run(simLength - elapsed);
+			return;
+		}
+
+		SimulationEngine engine = settings.createEngine();
+		if (settings.getCheckpointFilename() != null) {
+			engine.addTickListener(new Checkpointer(settings.getCheckpointFilename(), 
+					settings.getCheckpointInterval(), elapsed));
+		}
+		// Record meters every unit time if requested
+		MeterRecorder recorder = null;
+		CompressedMeterHistory history = null;
+		GridAggregator grid = null;
+		MeterIntervalIndex index = null;
+		ArrayList<MeterQuery> queries = null;
+		MeterRollup rollup = null;
+		if (settings.isRecordingMeters()) {
+			recorder = new MeterRecorder(simHouses);
+			if (settings.getMeterHistoryFilename() != null) {
+				history = new CompressedMeterHistory();
+				recorder.addSink(history);
 			}
-			// Sleep between unit time increments to slow down simulation 
-			try {
-				Thread.sleep(50);
-			} catch (InterruptedException e) {
-				Logger.error("Thread sleep failed");
+			if (settings.getMeterFilename() != null) {
+				recorder.addSink(new MappedMeterHistory(settings.getMeterFilename()));
+			}
+			if (settings.getGridLoadFilename() != null) {
+				grid = new GridAggregator(simHouses, settings.getThreadCount());
+				recorder.addSink(grid);
+			}
+			if (settings.getPeakDemandCount() > 0) {
+				recorder.addSink(new PeakDemandTracker(settings.getPeakDemandCount()));
 			}
-		}	
+			if (settings.getMeterQueriesFilename() != null) {
+				// Read queries first so a bad file fails before simulating
+				queries = MeterQuery.load(settings.getMeterQueriesFilename());
+				index = new MeterIntervalIndex();
+				recorder.addSink(index);
+			}
+			if (settings.getRollupsFilename() != null) {
+				rollup = new MeterRollup();
+				recorder.addSink(rollup);
+			}
+			engine.addTickListener(recorder);
+		}
+
+		engine.run(simHouses, simLength - elapsed);
+
+		if (recorder != null) {
+			recorder.finish();
+			if (history != null) {
+				history.writeCsv(settings.getMeterHistoryFilename());
+			}
+			if (grid != null) {
+				grid.writeCsv(settings.getGridLoadFilename());
+			}
+			if (index != null) {
+				index.outputQueries(queries);
+			}
+			if (rollup != null) {
+				rollup.writeCsv(settings.getRollupsFilename());
+			}
+		}
 	}
 	
 }
@@ -0,0 +1,99 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Class that measures how fast houses are simulated.
+ * Houses are read from a configuration file and copied many times, then simulated
+ * unpaced with all logging off. After warm up runs, each run reports the unit times
+ * simulated per second, followed by the median over all runs.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class SimulationBenchmark {
+	// Defaults of arguments
+	private final static int DEFAULT_SIM_LENGTH = House.DAY_LENGTH * 100;
+	private final static int DEFAULT_COPIES = 100;
+	// Number of runs to let the JIT compiler settle, then number of measured runs
+	private final static int WARM_UP_COUNT = 3;
+	private final static int RUN_COUNT = 5;
+
+	/**
+	 * --- Main
+	 * @param  args : [0] = filename, [1] = simulation length, [2] = copies of the configuration,
+	 *                [3+] = options e.g. engine=compiled (clock and output options are ignored)
+	 */
+	public static void main(String[] args) {
+		// Disable all logging, errors are still thrown
+		Logger.setMessageSettings(false, false);
+		Logger.setWarningSettings(false, false);
+		Logger.setErrorSettings(false);
+
+		String filename = (args.length >= 1) ? args[0] : null;
+		int simLength = DEFAULT_SIM_LENGTH;
+		int copies = DEFAULT_COPIES;
+		try {
+			if (args.length >= 2) {
+				simLength = Integer.parseInt(args[1]);
+			}
+			if (args.length >= 3) {
+				copies = Integer.parseInt(args[2]);
+			}
+		}
+		catch (NumberFormatException e) {
+			Logger.error("Simulation length and copies arguments must be integers");
+		}
+		SimulationSettings settings = new SimulationSettings();
+		for (int i = 3; i < args.length; i++) {
+			settings.applyOption(args[i]);
+		}
+
+		// Read the configuration once, copies are taken for each run
+		ConfigurationReader reader = (filename != null) ? new ConfigurationReader(filename) : new ConfigurationReader();
+		ArrayList<House> houses = reader.getHouseFromFile();
+		reader.closeReader();
+		if (houses.size() == 0) {
+			Logger.error("No houses found in file");
+		}
+
+		System.out.println(String.format("Benchmark '%s': %d houses x %d copies, %d unit times, engine '%s'",
+				reader.getFilename(), houses.size(), copies, simLength, settings.getEngineName()));
+		for (int r = 0; r < WARM_UP_COUNT; r++) {
+			run(houses, copies, simLength, settings);
+		}
+		double[] rates = new double[RUN_COUNT];
+		for (int r = 0; r < RUN_COUNT; r++) {
+			rates[r] = run(houses, copies, simLength, settings);
+			System.out.println(String.format("Run %d: %.0f unit times/s (%.0f house unit times/s)",
+					r + 1, rates[r], rates[r] * houses.size() * copies));
+		}
+		Arrays.sort(rates);
+		double median = rates[RUN_COUNT / 2];
+		System.out.println(String.format("Median: %.0f unit times/s (%.0f house unit times/s)",
+				median, median * houses.size() * copies));
+	}
+
+	/**
+	 * Simulate fresh copies of houses and time it.
+	 * @param  houses Houses to copy
+	 * @param  copies Number of copies of the houses to simulate together
+	 * @param  simLength Unit times to simulate
+	 * @param  settings Settings to create the engine from
+	 * @return  Unit times simulated per second
+	 */
+	private static double run(ArrayList<House> houses, int copies, int simLength, SimulationSettings settings) {
+		ArrayList<House> runHouses = new ArrayList<House>(houses.size() * copies);
+		for (int c = 0; c < copies; c++) {
+			runHouses.addAll(HouseCopier.copyAll(houses));
+		}
+		Simulation.seedAppliances(runHouses, settings.getSeed());
+
+		SimulationEngine engine = settings.createEngine();
+		engine.setClock(new UnpacedClock());
+		long start = System.nanoTime();
+		engine.run(runHouses, simLength);
+		long elapsed = System.nanoTime() - start;
+		return simLength / (elapsed / 1e9);
+	}
+
+}
@@ -0,0 +1,64 @@
+/**
+ * Abstract class that represents a clock pacing a simulation.
+ * An engine starts the clock once before the first unit time and then
+ * waits on the clock after completing each unit time.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public abstract class SimulationClock {
+	// Clock option values
+	private static final String UNPACED_MODE = "unpaced";
+	private static final String FIXED_MODE = "fixed";
+	private static final String SCALED_MODE = "scaled";
+	// Separator between mode and mode argument
+	private static final char MODE_SEP_LABEL = ':';
+
+	/**
+	 * Start the clock, marking the beginning of the first unit time.
+	 */
+	public abstract void start();
+
+	/**
+	 * Wait until a unit time is due to start.
+	 * @param  tick Number of unit times completed since the clock started
+	 */
+	public abstract void awaitTick(long tick);
+
+	/**
+	 * Create a clock from a clock option value.
+	 * Accepted values are 'unpaced', 'fixed:[millis per unit time]' 
+	 * and 'scaled:[simulated time / real time]'.
+	 * @param  value Clock option value
+	 * @return  Clock described by the value
+	 */
+	public static SimulationClock fromString(String value) {
+		// Split mode from its argument
+		String mode = value;
+		String argument = null;
+		int sep = value.indexOf(MODE_SEP_LABEL);
+		if (sep >= 0) {
+			mode = value.substring(0, sep);
+			argument = value.substring(sep + 1);
+		}
+
+		try {
+			if (mode.equals(UNPACED_MODE) && argument == null) {
+				return new UnpacedClock();
+			}
+			else if (mode.equals(FIXED_MODE) && argument != null) {
+				return new FixedRateClock(Long.parseLong(argument));
+			}
+			else if (mode.equals(SCALED_MODE) && argument != null) {
+				return new ScaledClock(Double.parseDouble(argument));
+			}
+		}
+		catch (NumberFormatException e) {
+			Logger.error(String.format("Clock argument '%s' is not a number", argument));
+		}
+		Logger.error(String.format("Clock '%s' not recognised, use '%s', '%s:[millis]' or '%s:[factor]'", 
+				value, UNPACED_MODE, FIXED_MODE, SCALED_MODE));
+		return null;
+	}
+
+}
@@ -0,0 +1,143 @@
+import java.util.ArrayList;
+
+/**
+ * Abstract class that represents a method of simulating houses.
+ * All engines must produce the same meter totals and day reports
+ * as stepping each house one unit time after another.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public abstract class SimulationEngine {
+	// Default real time between unit times in milliseconds
+	final static long DEFAULT_PERIOD_MILLIS = 50;
+
+	// Clock pacing each unit time
+	protected SimulationClock clock = new FixedRateClock(DEFAULT_PERIOD_MILLIS);
+	// Listeners notified between unit times
+	private ArrayList<TickListener> listeners = new ArrayList<TickListener>();
+
+	/**
+	 * @return  Value of clock
+	 */
+	public SimulationClock getClock() {
+		return clock;
+	}
+
+	/**
+	 * @param  clock Clock to pace unit times with
+	 */
+	public void setClock(SimulationClock clock) {
+		if (clock == null) {
+			Logger.error("Simulation clock cannot be null");
+		}
+		this.clock = clock;
+	}
+
+	/**
+	 * Adds a TickListener to be notified as the simulation progresses.
+	 * @param  listener Listener to add
+	 */
+	public void addTickListener(TickListener listener) {
+		if (listener == null) {
+			Logger.error("Tick listener cannot be null");
+		}
+		if (listener.getInterval() < 1) {
+			Logger.error("Tick listener interval must be positive");
+		}
+		listeners.add(listener);
+	}
+
+	/**
+	 * Get the most unit times that can pass before a listener must be notified.
+	 * @param  elapsed Unit times completed by the engine
+	 * @param  limit Most unit times wanted
+	 * @return  Unit times until a listener is due, at most limit
+	 */
+	protected int getTimeUntilListener(int elapsed, int limit) {
+		int until = limit;
+		for (TickListener listener : listeners) {
+			int interval = listener.getInterval();
+			until = Math.min(until, interval - (elapsed % interval));
+		}
+		return until;
+	}
+
+	/**
+	 * @param  elapsed Unit times completed by the engine
+	 * @return  True if any listener is due to be notified
+	 */
+	protected boolean isListenerDue(int elapsed) {
+		for (TickListener listener : listeners) {
+			if (elapsed % listener.getInterval() == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Notify listeners that are due after a number of unit times.
+	 * @param  houses Houses being simulated
+	 * @param  elapsed Unit times completed by the engine
+	 */
+	protected void notifyListeners(ArrayList<House> houses, int elapsed) {
+		for (TickListener listener : listeners) {
+			if (elapsed % listener.getInterval() == 0) {
+				listener.tickComplete(houses, elapsed);
+			}
+		}
+	}
+
+	/**
+	 * Simulate unit time passing for all houses.
+	 * @param  houses Houses to simulate, in report order
+	 * @param  simLength Unit time to run the simulation for
+	 */
+	public abstract void run(ArrayList<House> houses, int simLength);
+
+	/**
+	 * Simulate a unit time passing for each house in a group, in order, buffering 
+	 * the output of each house. Stops at the first house that fails.
+	 * @param  group Group of houses to step
+	 * @param  buffers Array to place buffered output of each house, indexed by house
+	 * @param  failures Array to place the failure of a house, indexed by house
+	 */
+	protected static void stepGroup(HouseGroup group, LogBuffer[] buffers, RuntimeException[] failures) {
+		for (int i = 0; i < group.size(); i++) {
+			int index = group.getIndex(i);
+			buffers[index] = Logger.startBuffer();
+			try {
+				group.getHouse(i).timePasses();
+			}
+			catch (RuntimeException e) {
+				// Later houses in the group would not have run after a failure
+				failures[index] = e;
+				break;
+			}
+			finally {
+				Logger.stopBuffer();
+			}
+		}
+	}
+
+	/**
+	 * Write buffered output of each house in house order.
+	 * If a house failed, output stops at that house and its failure is thrown,
+	 * as if the houses had been stepped one after another.
+	 * @param  buffers Buffered output indexed by house, cleared once written
+	 * @param  failures Failures indexed by house, cleared once checked
+	 */
+	protected static void writeBufferedOutput(LogBuffer[] buffers, RuntimeException[] failures) {
+		for (int i = 0; i < buffers.length; i++) {
+			if (buffers[i] != null) {
+				buffers[i].flush();
+				buffers[i] = null;
+			}
+			if (failures[i] != null) {
+				throw failures[i];
+			}
+		}
+	}
+
+}
@@ -0,0 +1,513 @@
+import java.util.ArrayList;
+
+/**
+ * Class holding the optional settings of a Simulation.
+ * On the command line, settings follow the filename and simulation length
+ * as 'name=value' options e.g. 'threads=4'.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class SimulationSettings {
+	// Option names
+	private static final String THREADS_OPTION = "threads";
+	private static final String CLOCK_OPTION = "clock";
+	private static final String ENGINE_OPTION = "engine";
+	private static final String CHECKPOINT_OPTION = "checkpoint";
+	private static final String CHECKPOINT_INTERVAL_OPTION = "checkpointInterval";
+	private static final String RESTORE_OPTION = "restore";
+	private static final String SEED_OPTION = "seed";
+	private static final String ENSEMBLE_OPTION = "ensemble";
+	private static final String SHARDS_OPTION = "shards";
+	private static final String METER_HISTORY_OPTION = "meterHistory";
+	private static final String METER_FILE_OPTION = "meterFile";
+	private static final String TARIFF_OPTION = "tariff";
+	private static final String GRID_LOAD_OPTION = "gridLoad";
+	private static final String PEAK_DEMAND_OPTION = "peakDemand";
+	private static final String METER_QUERIES_OPTION = "meterQueries";
+	private static final String ROLLUPS_OPTION = "rollups";
+	// Engine option values
+	private static final String TICK_ENGINE = "tick";
+	private static final String EVENT_ENGINE = "event";
+	private static final String THREADED_ENGINE = "threaded";
+	private static final String COMPILED_ENGINE = "compiled";
+	// Separator between option name and value
+	private static final char OPTION_SEP_LABEL = '=';
+
+	// Settings
+	private int threadCount = 1;
+	private SimulationClock clock = null; // null when engine default is used
+	private String engineName = TICK_ENGINE;
+	private String checkpointFilename = null; // null when no checkpoints are saved
+	private int checkpointInterval = House.DAY_LENGTH;
+	private String restoreFilename = null; // null when simulation starts from configuration
+	private long seed = RandomStream.newSeed(); // differs every run unless set
+	private int ensembleRuns = 0; // 0 when a single run is simulated
+	private int shardCount = 1;
+	private String meterHistoryFilename = null; // null when meters are not recorded as CSV
+	private String meterFilename = null; // null when meters are not recorded to a mapped file
+	private String tariffFilename = null; // null when meters are not billed
+	private String gridLoadFilename = null; // null when grid totals are not recorded
+	private int peakDemandCount = 0; // 0 when peak demand is not tracked
+	private String meterQueriesFilename = null; // null when meter readings are not indexed for queries
+	private String rollupsFilename = null; // null when meter readings are not rolled up
+
+	/**
+	 * Constructor for SimulationSettings.
+	 * Use default settings, a sequential simulation.
+	 */
+	public SimulationSettings() {
+	}
+
+	/**
+	 * Constructor for SimulationSettings.
+	 * Apply each option in turn over default settings.
+	 * @param  options Options in the form 'name=value'
+	 */
+	public SimulationSettings(String[] options) {
+		for (String option : options) {
+			applyOption(option);
+		}
+	}
+
+	/**
+	 * Apply a single option of the form 'name=value'.
+	 * @param  option Option to apply
+	 */
+	public void applyOption(String option) {
+		int sep = option.indexOf(OPTION_SEP_LABEL);
+		if (sep <= 0) {
+			Logger.error(String.format("Option '%s' must be in the form 'name=value'", option));
+		}
+		String name = option.substring(0, sep);
+		String value = option.substring(sep + 1);
+
+		if (name.equals(THREADS_OPTION)) {
+			setThreadCount(parseInteger(name, value));
+		}
+		else if (name.equals(CLOCK_OPTION)) {
+			setClock(SimulationClock.fromString(value));
+		}
+		else if (name.equals(ENGINE_OPTION)) {
+			setEngineName(value);
+		}
+		else if (name.equals(CHECKPOINT_OPTION)) {
+			setCheckpointFilename(value);
+		}
+		else if (name.equals(CHECKPOINT_INTERVAL_OPTION)) {
+			setCheckpointInterval(parseInteger(name, value));
+		}
+		else if (name.equals(RESTORE_OPTION)) {
+			setRestoreFilename(value);
+		}
+		else if (name.equals(SEED_OPTION)) {
+			setSeed(parseLong(name, value));
+		}
+		else if (name.equals(ENSEMBLE_OPTION)) {
+			setEnsembleRuns(parseInteger(name, value));
+		}
+		else if (name.equals(SHARDS_OPTION)) {
+			setShardCount(parseInteger(name, value));
+		}
+		else if (name.equals(METER_HISTORY_OPTION)) {
+			setMeterHistoryFilename(value);
+		}
+		else if (name.equals(METER_FILE_OPTION)) {
+			setMeterFilename(value);
+		}
+		else if (name.equals(TARIFF_OPTION)) {
+			setTariffFilename(value);
+		}
+		else if (name.equals(GRID_LOAD_OPTION)) {
+			setGridLoadFilename(value);
+		}
+		else if (name.equals(PEAK_DEMAND_OPTION)) {
+			setPeakDemandCount(parseInteger(name, value));
+		}
+		else if (name.equals(METER_QUERIES_OPTION)) {
+			setMeterQueriesFilename(value);
+		}
+		else if (name.equals(ROLLUPS_OPTION)) {
+			setRollupsFilename(value);
+		}
+		else {
+			Logger.error(String.format("Option '%s' is not recognised", name));
+		}
+	}
+
+	/**
+	 * Parse the value of an integer option.
+	 * @param  name Name of option, used for errors
+	 * @param  value Value to parse
+	 * @return  Parsed value
+	 */
+	private static int parseInteger(String name, String value) {
+		try {
+			return Integer.parseInt(value);
+		}
+		catch (NumberFormatException e) {
+			Logger.error(String.format("Option '%s' must be an integer", name));
+			return 0;
+		}
+	}
+
+	/**
+	 * Parse the value of a long integer option.
+	 * @param  name Name of option, used for errors
+	 * @param  value Value to parse
+	 * @return  Parsed value
+	 */
+	private static long parseLong(String name, String value) {
+		try {
+			return Long.parseLong(value);
+		}
+		catch (NumberFormatException e) {
+			Logger.error(String.format("Option '%s' must be an integer", name));
+			return 0;
+		}
+	}
+
+	/**
+	 * @return  Value of threadCount
+	 */
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	/**
+	 * @param  threadCount Number of threads to simulate houses on [> 0]
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			Logger.error("Thread count must be positive");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * @return  Value of clock, null if the engine default is used
+	 */
+	public SimulationClock getClock() {
+		return clock;
+	}
+
+	/**
+	 * @param  clock Clock to pace the simulation with, null to use the engine default
+	 */
+	public void setClock(SimulationClock clock) {
+		this.clock = clock;
+	}
+
+	/**
+	 * @return  Value of engineName
+	 */
+	public String getEngineName() {
+		return engineName;
+	}
+
+	/**
+	 * @param  engineName Name of engine to simulate with ('tick', 'event', 'threaded' or 'compiled')
+	 */
+	public void setEngineName(String engineName) {
+		if (!(engineName.equals(TICK_ENGINE) || engineName.equals(EVENT_ENGINE) 
+				|| engineName.equals(THREADED_ENGINE) || engineName.equals(COMPILED_ENGINE))) {
+			Logger.error(String.format("Engine '%s' not recognised, use '%s', '%s', '%s' or '%s'", 
+					engineName, TICK_ENGINE, EVENT_ENGINE, THREADED_ENGINE, COMPILED_ENGINE));
+		}
+		this.engineName = engineName;
+	}
+
+	/**
+	 * @return  Value of checkpointFilename, null if no checkpoints are saved
+	 */
+	public String getCheckpointFilename() {
+		return checkpointFilename;
+	}
+
+	/**
+	 * @param  checkpointFilename Filename to save checkpoints to, null to save none
+	 */
+	public void setCheckpointFilename(String checkpointFilename) {
+		this.checkpointFilename = checkpointFilename;
+	}
+
+	/**
+	 * @return  Value of checkpointInterval
+	 */
+	public int getCheckpointInterval() {
+		return checkpointInterval;
+	}
+
+	/**
+	 * @param  checkpointInterval Unit times between checkpoints [> 0]
+	 */
+	public void setCheckpointInterval(int checkpointInterval) {
+		if (checkpointInterval < 1) {
+			Logger.error("Checkpoint interval must be positive");
+		}
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	/**
+	 * @return  Value of restoreFilename, null if simulation starts from configuration
+	 */
+	public String getRestoreFilename() {
+		return restoreFilename;
+	}
+
+	/**
+	 * @param  restoreFilename Filename of checkpoint to restore before simulating, null to restore none
+	 */
+	public void setRestoreFilename(String restoreFilename) {
+		this.restoreFilename = restoreFilename;
+	}
+
+	/**
+	 * @return  Value of seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @param  seed Seed of run that every appliance's random stream is derived from
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @return  Value of ensembleRuns, 0 if a single run is simulated
+	 */
+	public int getEnsembleRuns() {
+		return ensembleRuns;
+	}
+
+	/**
+	 * @param  ensembleRuns Number of runs to summarise (see EnsembleRunner), 0 for a single run [>= 0]
+	 */
+	public void setEnsembleRuns(int ensembleRuns) {
+		if (ensembleRuns < 0) {
+			Logger.error("Ensemble run count cannot be negative");
+		}
+		this.ensembleRuns = ensembleRuns;
+	}
+
+	/**
+	 * @return  Value of shardCount
+	 */
+	public int getShardCount() {
+		return shardCount;
+	}
+
+	/**
+	 * @param  shardCount Number of worker processes to split houses over, 1 to simulate in this process [> 0]
+	 */
+	public void setShardCount(int shardCount) {
+		if (shardCount < 1) {
+			Logger.error("Shard count must be positive");
+		}
+		this.shardCount = shardCount;
+	}
+
+	/**
+	 * @return  Value of meterHistoryFilename, null if meters are not recorded
+	 */
+	public String getMeterHistoryFilename() {
+		return meterHistoryFilename;
+	}
+
+	/**
+	 * @param  meterHistoryFilename Filename to write meter readings of every unit time to as CSV, null to write none
+	 */
+	public void setMeterHistoryFilename(String meterHistoryFilename) {
+		this.meterHistoryFilename = meterHistoryFilename;
+	}
+
+	/**
+	 * @return  Value of meterFilename, null if meters are not recorded to a mapped file
+	 */
+	public String getMeterFilename() {
+		return meterFilename;
+	}
+
+	/**
+	 * @param  meterFilename Filename to map meter readings of every unit time to (see MappedMeterHistory), null for none
+	 */
+	public void setMeterFilename(String meterFilename) {
+		this.meterFilename = meterFilename;
+	}
+
+	/**
+	 * @return  Value of tariffFilename, null if meters are not billed
+	 */
+	public String getTariffFilename() {
+		return tariffFilename;
+	}
+
+	/**
+	 * @param  tariffFilename Filename of Tariff to bill meters with, null to bill none
+	 */
+	public void setTariffFilename(String tariffFilename) {
+		this.tariffFilename = tariffFilename;
+	}
+
+	/**
+	 * @return  Value of gridLoadFilename, null if grid totals are not recorded
+	 */
+	public String getGridLoadFilename() {
+		return gridLoadFilename;
+	}
+
+	/**
+	 * @param  gridLoadFilename Filename to write grid totals of every unit time to as CSV (see GridAggregator), null for none
+	 */
+	public void setGridLoadFilename(String gridLoadFilename) {
+		this.gridLoadFilename = gridLoadFilename;
+	}
+
+	/**
+	 * @return  Value of peakDemandCount, 0 if peak demand is not tracked
+	 */
+	public int getPeakDemandCount() {
+		return peakDemandCount;
+	}
+
+	/**
+	 * @param  peakDemandCount Number of houses drawing the most electricity to report (see PeakDemandTracker), 0 for none [>= 0]
+	 */
+	public void setPeakDemandCount(int peakDemandCount) {
+		if (peakDemandCount < 0) {
+			Logger.error("Peak demand count cannot be negative");
+		}
+		this.peakDemandCount = peakDemandCount;
+	}
+
+	/**
+	 * @return  Value of meterQueriesFilename, null if meter readings are not indexed for queries
+	 */
+	public String getMeterQueriesFilename() {
+		return meterQueriesFilename;
+	}
+
+	/**
+	 * @param  meterQueriesFilename Filename of queries to answer from indexed meter readings (see MeterQuery), null for none
+	 */
+	public void setMeterQueriesFilename(String meterQueriesFilename) {
+		this.meterQueriesFilename = meterQueriesFilename;
+	}
+
+	/**
+	 * @return  Value of rollupsFilename, null if meter readings are not rolled up
+	 */
+	public String getRollupsFilename() {
+		return rollupsFilename;
+	}
+
+	/**
+	 * @param  rollupsFilename Filename to write hour, day, week and month totals of every meter to as CSV (see MeterRollup), null for none
+	 */
+	public void setRollupsFilename(String rollupsFilename) {
+		this.rollupsFilename = rollupsFilename;
+	}
+
+	/**
+	 * @return  True if any option records meter readings every unit time
+	 */
+	public boolean isRecordingMeters() {
+		return meterHistoryFilename != null || meterFilename != null || gridLoadFilename != null 
+				|| peakDemandCount > 0 || meterQueriesFilename != null || rollupsFilename != null;
+	}
+
+	/**
+	 * Create the ShardCoordinator described by the settings.
+	 * Workers use the engine, thread count, seed and tariff of the settings, and are paced by the coordinator.
+	 * @return  Coordinator to simulate shards with
+	 */
+	public ShardCoordinator createShardCoordinator() {
+		if (checkpointFilename != null || restoreFilename != null) {
+			Logger.error("Checkpoints cannot be saved or restored whilst running shards");
+		}
+		if (ensembleRuns > 0) {
+			Logger.error("An ensemble cannot be run in shards");
+		}
+		if (isRecordingMeters()) {
+			Logger.error("Meters cannot be recorded whilst running shards");
+		}
+		// Check engine settings before starting any workers
+		createEngine();
+
+		ArrayList<String> workerOptions = new ArrayList<String>();
+		workerOptions.add(ENGINE_OPTION + OPTION_SEP_LABEL + engineName);
+		workerOptions.add(THREADS_OPTION + OPTION_SEP_LABEL + threadCount);
+		workerOptions.add(SEED_OPTION + OPTION_SEP_LABEL + seed);
+		if (tariffFilename != null) {
+			workerOptions.add(TARIFF_OPTION + OPTION_SEP_LABEL + tariffFilename);
+		}
+		ShardCoordinator coordinator = new ShardCoordinator(shardCount, workerOptions);
+		if (clock != null) {
+			coordinator.setClock(clock);
+		}
+		return coordinator;
+	}
+
+	/**
+	 * Create the EnsembleRunner described by the settings.
+	 * Runs are spread over the thread count if set, else over every available processor.
+	 * @param  houses Houses to copy for each run
+	 * @return  Runner to simulate an ensemble with
+	 */
+	public EnsembleRunner createEnsembleRunner(ArrayList<House> houses) {
+		if (ensembleRuns < 1) {
+			Logger.error("Ensemble run count must be set to run an ensemble");
+		}
+		if (checkpointFilename != null) {
+			Logger.error("Checkpoints cannot be saved whilst running an ensemble");
+		}
+		if (isRecordingMeters()) {
+			Logger.error("Meters cannot be recorded whilst running an ensemble");
+		}
+		if (tariffFilename != null) {
+			Logger.error("Meters cannot be billed whilst running an ensemble");
+		}
+		int runThreads = (threadCount > 1) ? threadCount : Runtime.getRuntime().availableProcessors();
+		return new EnsembleRunner(houses, ensembleRuns, runThreads, seed);
+	}
+
+	/**
+	 * Create the SimulationEngine described by the settings.
+	 * @return  Engine to run a simulation with
+	 */
+	public SimulationEngine createEngine() {
+		SimulationEngine engine;
+		if (engineName.equals(EVENT_ENGINE)) {
+			if (threadCount > 1) {
+				Logger.error("Event engine runs on a single thread");
+			}
+			engine = new EventEngine();
+		}
+		else if (engineName.equals(THREADED_ENGINE)) {
+			if (threadCount > 1) {
+				Logger.error("Threaded engine runs a thread per house group, thread count cannot be set");
+			}
+			engine = new ThreadedEngine();
+		}
+		else if (engineName.equals(COMPILED_ENGINE)) {
+			if (threadCount > 1) {
+				Logger.error("Compiled engine runs on a single thread");
+			}
+			engine = new CompiledEngine();
+		}
+		else if (threadCount > 1) {
+			engine = new ParallelEngine(threadCount);
+		}
+		else {
+			engine = new SequentialEngine();
+		}
+		if (clock != null) {
+			engine.setClock(clock);
+		}
+		return engine;
+	}
+
+}
@@ -43,8 +43,8 @@ public class TV extends Appliance {
 
 		// Define Appliance tasks on object instantiation
 		// An exception is thrown if the task method does not exist
-		addTask(new ApplianceTask("TurnOnTV", getMethod("turnOn"), false, false));
-		addTask(new ApplianceTask("TurnOffTV", getMethod("turnOff"), true, true));
+		addTask(new ApplianceTask("TurnOnTV", Appliance::turnOn, false, false));
+		addTask(new ApplianceTask("TurnOffTV", Appliance::turnOff, true, true));
 	}
 
 	@Override
@@ -0,0 +1,191 @@
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Class representing the prices charged for each UtilityType, read from a tariff file.
+ * Applying a tariff to houses gives each connected Meter of a priced type a Bill,
+ * day reports then include the cost of each meter.
+ *
+ * A tariff file lists a utility type followed by its prices, in pence per unit:
+ *   Electric:           - Following prices are for electricity
+ *   Rate:15.5           - Price per unit consumed for the whole day
+ *   Band:28,40,30.25    - Price per unit consumed from unit time 28 of the day up to 40
+ *   Export:5            - Price credited per unit generated
+ *   Standing:45         - Price charged per day
+ * Later prices replace earlier ones, so bands should follow the rate they override.
+ * Blank lines and lines starting '//' are ignored, as in configuration files.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class Tariff {
+	// Tariff file syntax
+	private static final String COMMENT_LABEL = "//";
+	private static final char CLASS_SEP_LABEL = ':';
+	private static final char ARG_SEP_LABEL = ',';
+	private static final String RATE_LABEL = "Rate";
+	private static final String BAND_LABEL = "Band";
+	private static final String EXPORT_LABEL = "Export";
+	private static final String STANDING_LABEL = "Standing";
+
+	// Schedules, indexed by UtilityType ordinal, null if not priced
+	private TariffSchedule[] schedules = new TariffSchedule[UtilityType.values().length];
+
+	/**
+	 * Read a tariff from a file.
+	 * @param  filename Filename of tariff
+	 * @return  Tariff read
+	 */
+	public static Tariff load(String filename) {
+		Tariff tariff = new Tariff();
+		try {
+			BufferedReader reader = new BufferedReader(new FileReader(filename));
+			try {
+				String line;
+				TariffSchedule schedule = null;
+				for (int lineNumber = 1; (line = reader.readLine()) != null; lineNumber++) {
+					line = line.trim();
+					if (line.isEmpty() || line.startsWith(COMMENT_LABEL)) {
+						continue;
+					}
+					schedule = tariff.readLine(line, schedule, String.format("'%s' line %d", filename, lineNumber));
+				}
+			}
+			finally {
+				reader.close();
+			}
+		}
+		catch (FileNotFoundException e) {
+			Logger.error(String.format("'%s' not found", filename));
+		}
+		catch (IOException e) {
+			Logger.error(String.format("Tariff '%s' could not be read\nCaught exception: %s", filename, e));
+		}
+		return tariff;
+	}
+
+	/**
+	 * Apply a line of a tariff file.
+	 * @param  line Line to apply, not blank or a comment
+	 * @param  schedule Schedule of the last utility type, null if none yet
+	 * @param  location Description of the line for errors
+	 * @return  Schedule that following lines apply to
+	 */
+	private TariffSchedule readLine(String line, TariffSchedule schedule, String location) {
+		int sep = line.indexOf(CLASS_SEP_LABEL);
+		if (sep <= 0) {
+			Logger.error(String.format("%s is not in the form 'Name:arguments'", location));
+		}
+		String name = line.substring(0, sep);
+		String[] args = line.substring(sep + 1).split(String.valueOf(ARG_SEP_LABEL), -1);
+
+		// Utility type starts a new schedule
+		for (UtilityType type : UtilityType.values()) {
+			if (type.asString().equals(name)) {
+				if (schedules[type.ordinal()] == null) {
+					schedules[type.ordinal()] = new TariffSchedule();
+				}
+				return schedules[type.ordinal()];
+			}
+		}
+		if (schedule == null) {
+			Logger.error(String.format("%s sets a price before any utility type", location));
+		}
+		if (name.equals(RATE_LABEL)) {
+			checkArgCount(args, 1, location);
+			schedule.setRate(0, House.DAY_LENGTH, parsePrice(args[0], location));
+		}
+		else if (name.equals(BAND_LABEL)) {
+			checkArgCount(args, 3, location);
+			schedule.setRate(parseInteger(args[0], location), parseInteger(args[1], location), 
+					parsePrice(args[2], location));
+		}
+		else if (name.equals(EXPORT_LABEL)) {
+			checkArgCount(args, 1, location);
+			schedule.setExportRate(parsePrice(args[0], location));
+		}
+		else if (name.equals(STANDING_LABEL)) {
+			checkArgCount(args, 1, location);
+			schedule.setStandingCharge(parsePrice(args[0], location));
+		}
+		else {
+			Logger.error(String.format("%s has unknown price '%s'", location, name));
+		}
+		return schedule;
+	}
+
+	/**
+	 * @param  args Arguments of line
+	 * @param  count Number of arguments expected
+	 * @param  location Description of the line for errors
+	 */
+	private static void checkArgCount(String[] args, int count, String location) {
+		if (args.length != count) {
+			Logger.error(String.format("%s should have %d arguments", location, count));
+		}
+	}
+
+	/**
+	 * @param  arg Argument to parse
+	 * @param  location Description of the line for errors
+	 * @return  Parsed integer
+	 */
+	private static int parseInteger(String arg, String location) {
+		try {
+			return Integer.parseInt(arg.trim());
+		}
+		catch (NumberFormatException e) {
+			Logger.error(String.format("%s has '%s' where an integer is expected", location, arg));
+			return 0;
+		}
+	}
+
+	/**
+	 * @param  arg Price in pence, up to two decimal places
+	 * @param  location Description of the line for errors
+	 * @return  Price in hundredths of a penny
+	 */
+	private static long parsePrice(String arg, String location) {
+		try {
+			return new BigDecimal(arg.trim()).movePointRight(2).longValueExact();
+		}
+		catch (ArithmeticException | NumberFormatException e) {
+			Logger.error(String.format("%s has '%s' where a price in pence (up to 2 decimal places) is expected", 
+					location, arg));
+			return 0;
+		}
+	}
+
+	/**
+	 * @param  type Utility type of schedule
+	 * @return  Prices of utility type, null if not priced
+	 */
+	public TariffSchedule getSchedule(UtilityType type) {
+		return schedules[type.ordinal()];
+	}
+
+	/**
+	 * Give every meter connected to the houses a Bill, if the tariff prices its utility type.
+	 * @param  houses Houses holding meters to bill
+	 */
+	public void apply(ArrayList<House> houses) {
+		for (House house : houses) {
+			Iterator<Meter> itrMeters = house.getMetersIterator();
+			while (itrMeters.hasNext()) {
+				Meter meter = itrMeters.next();
+				for (UtilityType type : UtilityType.values()) {
+					if (type.asString().equals(meter.getType()) && schedules[type.ordinal()] != null 
+							&& meter.getBill() == null) {
+						meter.setBill(new Bill(schedules[type.ordinal()], house.getTime()));
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+/**
+ * Class representing the prices of a single UtilityType within a Tariff.
+ * Prices are held in hundredths of a penny so that costs add up exactly.
+ * The import rate can differ for each unit time of the day (time of use bands),
+ * generation is credited at a single export rate and a standing charge is made each day.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class TariffSchedule {
+	// Prices, in hundredths of a penny
+	private long[] rates = new long[House.DAY_LENGTH]; // per unit consumed, indexed by unit time of day
+	private long exportRate = 0; // per unit generated
+	private long standingCharge = 0; // per day
+	// Unit times until the rate changes or the day ends, indexed by unit time of day
+	private int[] untilRateChange = new int[House.DAY_LENGTH];
+
+	/**
+	 * Constructor for TariffSchedule.
+	 * Nothing is charged or credited until prices are set.
+	 */
+	public TariffSchedule() {
+		updateRateChanges();
+	}
+
+	/**
+	 * Set the import rate of a band of unit times of the day.
+	 * @param  from First unit time of day (inclusive) [0 <= from < to]
+	 * @param  to Last unit time of day (exclusive) [<= House.DAY_LENGTH]
+	 * @param  rate Price per unit consumed, in hundredths of a penny [>= 0]
+	 */
+	public void setRate(int from, int to, long rate) {
+		if (from < 0 || to > House.DAY_LENGTH || from >= to) {
+			Logger.error(String.format("Band %d to %d is not within a day of %d unit times", from, to, House.DAY_LENGTH));
+		}
+		if (rate < 0) {
+			Logger.error("Rate cannot be negative");
+		}
+		for (int t = from; t < to; t++) {
+			rates[t] = rate;
+		}
+		updateRateChanges();
+	}
+
+	/**
+	 * @param  exportRate Price credited per unit generated, in hundredths of a penny [>= 0]
+	 */
+	public void setExportRate(long exportRate) {
+		if (exportRate < 0) {
+			Logger.error("Export rate cannot be negative");
+		}
+		this.exportRate = exportRate;
+	}
+
+	/**
+	 * @param  standingCharge Price charged per day, in hundredths of a penny [>= 0]
+	 */
+	public void setStandingCharge(long standingCharge) {
+		if (standingCharge < 0) {
+			Logger.error("Standing charge cannot be negative");
+		}
+		this.standingCharge = standingCharge;
+	}
+
+	/**
+	 * @param  time Time of house
+	 * @return  Price per unit consumed at time, in hundredths of a penny
+	 */
+	public long getRate(int time) {
+		return rates[time % House.DAY_LENGTH];
+	}
+
+	/**
+	 * @return  Returns the value of exportRate
+	 */
+	public long getExportRate() {
+		return exportRate;
+	}
+
+	/**
+	 * @return  Returns the value of standingCharge
+	 */
+	public long getStandingCharge() {
+		return standingCharge;
+	}
+
+	/**
+	 * @param  time Time of house
+	 * @return  Unit times until the rate changes or the day ends, whichever is first [>= 1]
+	 */
+	public int getTimeUntilRateChange(int time) {
+		return untilRateChange[time % House.DAY_LENGTH];
+	}
+
+	/**
+	 * Recalculate the unit times until each rate change, working back from the end of the day.
+	 */
+	private void updateRateChanges() {
+		untilRateChange[House.DAY_LENGTH - 1] = 1;
+		for (int t = House.DAY_LENGTH - 2; t >= 0; t--) {
+			untilRateChange[t] = (rates[t] == rates[t + 1]) ? untilRateChange[t + 1] + 1 : 1;
+		}
+	}
+
+}
@@ -0,0 +1,219 @@
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.concurrent.Phaser;
+
+/**
+ * Class of SimulationEngine that runs each group of houses (see HouseGroup) on its own thread.
+ * Every thread steps its houses a unit time and then waits on a Phaser, so all houses stay
+ * on the same unit time. When the last thread arrives, buffered output is written in house
+ * order and the clock is waited on before any thread continues, so output matches the
+ * SequentialEngine exactly.
+ *
+ * Threads are virtual threads when the running Java version supports them (Java 21+),
+ * allowing very large numbers of houses. Otherwise platform threads with a small stack are used.
+ * Phasers are tiered so that any number of threads can share a barrier.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class ThreadedEngine extends SimulationEngine {
+	// Maximum parties registered to a single Phaser before tiering
+	private final static int TIER_SIZE = 256;
+	// Stack size of platform threads when virtual threads are not supported
+	private final static long PLATFORM_STACK_SIZE = 256 * 1024;
+
+	// Thread.ofVirtual() and Thread.Builder.unstarted(Runnable), null when not supported
+	private final static Method OF_VIRTUAL = getVirtualMethod(Thread.class, "ofVirtual");
+	private final static Method UNSTARTED = getVirtualMethod(getBuilderClass(), "unstarted", Runnable.class);
+
+	@Override
+	public void run(ArrayList<House> houses, int simLength) {
+		if (simLength <= 0) {
+			return;
+		}
+		ArrayList<HouseGroup> groups = HouseGroup.partition(houses);
+		TickPhaser root = new TickPhaser(houses, simLength);
+
+		// Assign each group a Phaser to arrive at
+		Phaser[] phasers = new Phaser[groups.size()];
+		assignPhasers(root, 0, groups.size(), phasers);
+
+		// Create a thread for each group
+		Thread[] threads = new Thread[groups.size()];
+		for (int i = 0; i < groups.size(); i++) {
+			threads[i] = newThread(new GroupRunner(groups.get(i), phasers[i], root),
+					String.format("House group %d", i));
+		}
+
+		// Run all threads to completion
+		clock.start();
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		try {
+			for (Thread thread : threads) {
+				thread.join();
+			}
+		}
+		catch (InterruptedException e) {
+			root.forceTermination();
+			Logger.error("Simulation interrupted whilst waiting for houses");
+		}
+
+		// Pass on a failure that stopped the simulation
+		if (root.failure != null) {
+			throw root.failure;
+		}
+	}
+
+	/**
+	 * Register parties with a Phaser, creating child Phasers when there are too many.
+	 * @param  parent Phaser to register with
+	 * @param  from First party index (inclusive)
+	 * @param  to Last party index (exclusive)
+	 * @param  phasers Array to place the Phaser each party should arrive at
+	 */
+	private static void assignPhasers(Phaser parent, int from, int to, Phaser[] phasers) {
+		int count = to - from;
+		if (count <= TIER_SIZE) {
+			parent.bulkRegister(count);
+			for (int i = from; i < to; i++) {
+				phasers[i] = parent;
+			}
+		}
+		else {
+			// Split parties evenly between at most TIER_SIZE children
+			int childSize = (count + TIER_SIZE - 1) / TIER_SIZE;
+			for (int start = from; start < to; start += childSize) {
+				assignPhasers(new Phaser(parent), start, Math.min(to, start + childSize), phasers);
+			}
+		}
+	}
+
+	/**
+	 * Create an unstarted thread, virtual if supported.
+	 * @param  task Task for thread to run
+	 * @param  name Name of thread
+	 * @return  Created thread
+	 */
+	private static Thread newThread(Runnable task, String name) {
+		if (OF_VIRTUAL != null && UNSTARTED != null) {
+			try {
+				Thread thread = (Thread) UNSTARTED.invoke(OF_VIRTUAL.invoke(null), task);
+				thread.setName(name);
+				return thread;
+			}
+			catch (Exception e) {
+				// Fall back to a platform thread
+			}
+		}
+		return new Thread(null, task, name, PLATFORM_STACK_SIZE);
+	}
+
+	/**
+	 * Get the Thread.Builder class.
+	 * @return  Class of Thread.Builder, null if not supported
+	 */
+	private static Class<?> getBuilderClass() {
+		try {
+			return Class.forName("java.lang.Thread$Builder");
+		}
+		catch (ClassNotFoundException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Get a public method used to create virtual threads.
+	 * @param  clazz Class holding method, may be null
+	 * @param  methodName Name of method
+	 * @param  parameterTypes Types of method parameters
+	 * @return  Method, null if not supported
+	 */
+	private static Method getVirtualMethod(Class<?> clazz, String methodName, Class<?>... parameterTypes) {
+		if (clazz == null) {
+			return null;
+		}
+		try {
+			return clazz.getMethod(methodName, parameterTypes);
+		}
+		catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Root Phaser that completes each unit time once all houses have arrived.
+	 * Runs in the last thread to arrive while all others wait.
+	 */
+	private class TickPhaser extends Phaser {
+		// Output and failures of each house for the current unit time, indexed by house
+		private LogBuffer[] buffers;
+		private RuntimeException[] failures;
+		private ArrayList<House> houses;
+		private int simLength;
+		// Failure that stopped the simulation, null if none
+		private volatile RuntimeException failure = null;
+
+		/**
+		 * Constructor for TickPhaser.
+		 * @param  houses Houses being simulated
+		 * @param  simLength Unit time to run the simulation for
+		 */
+		TickPhaser(ArrayList<House> houses, int simLength) {
+			this.buffers = new LogBuffer[houses.size()];
+			this.failures = new RuntimeException[houses.size()];
+			this.houses = houses;
+			this.simLength = simLength;
+		}
+
+		@Override
+		protected boolean onAdvance(int phase, int registeredParties) {
+			try {
+				writeBufferedOutput(buffers, failures);
+				notifyListeners(houses, phase + 1);
+				// Wait for next unit time to slow down simulation
+				clock.awaitTick(phase + 1);
+			}
+			catch (RuntimeException e) {
+				failure = e;
+				return true; // terminate, releasing all threads
+			}
+			// Terminate once every unit time has run
+			return phase + 1 >= simLength || registeredParties == 0;
+		}
+	}
+
+	/**
+	 * Task that steps a group of houses each unit time until the simulation ends.
+	 */
+	private static class GroupRunner implements Runnable {
+		private HouseGroup group;
+		private Phaser phaser;
+		private TickPhaser root;
+
+		/**
+		 * Constructor for GroupRunner.
+		 * @param  group Group of houses to step
+		 * @param  phaser Phaser to arrive at after each unit time
+		 * @param  root Root Phaser holding output buffers
+		 */
+		GroupRunner(HouseGroup group, Phaser phaser, TickPhaser root) {
+			this.group = group;
+			this.phaser = phaser;
+			this.root = root;
+		}
+
+		@Override
+		public void run() {
+			while (!root.isTerminated()) {
+				stepGroup(group, root.buffers, root.failures);
+				// Negative phase once terminated
+				if (phaser.arriveAndAwaitAdvance() < 0) {
+					break;
+				}
+			}
+		}
+	}
+
+}
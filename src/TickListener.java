@@ -0,0 +1,29 @@
+import java.util.ArrayList;
+
+/**
+ * Abstract class that represents something notified as a simulation progresses.
+ * Engines notify listeners between unit times, when every house has completed the
+ * same number of unit times and all Appliance and Meter objects are up to date.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public abstract class TickListener {
+
+	/**
+	 * Get how often the listener must be notified.
+	 * Engines that do not run one unit time at a time only stop at multiples of this.
+	 * @return  Unit times between notifications, 1 by default
+	 */
+	public int getInterval() {
+		return 1;
+	}
+
+	/**
+	 * Called once houses have completed a multiple of getInterval() unit times.
+	 * @param  houses Houses being simulated
+	 * @param  elapsed Unit times completed by the engine
+	 */
+	public abstract void tickComplete(ArrayList<House> houses, int elapsed);
+
+}
@@ -0,0 +1,282 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class that schedules events for unit times, finding those due in O(1) amortised per event.
+ * A hierarchical timing wheel with House.DAY_LENGTH slots in every level: level 0 has a slot for
+ * each of the next 96 unit times, level 1 a slot for each of the next 96 days and level 2 a slot
+ * for each of the next 96 blocks of 96 days. Events further away wait in an overflow list. When the
+ * wheel reaches the start of a slot of a higher level, its events move down to the levels below,
+ * so every event due in the current day is in level 0.
+ *
+ * Events due in a unit time are read with getDue and are discarded once the wheel moves past it.
+ * The wheel only moves forwards.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ * @param  <E> Type of event
+ */
+public class TimingWheel<E> {
+	// Slots of every level
+	private final static int SLOT_COUNT = House.DAY_LENGTH;
+	private final static int LEVEL_COUNT = 3;
+	// Unit times covered by a slot of each level, then by a whole top level
+	private final static long[] SLOT_LENGTHS = {1, SLOT_COUNT, (long) SLOT_COUNT * SLOT_COUNT,
+			(long) SLOT_COUNT * SLOT_COUNT * SLOT_COUNT};
+
+	private int time; // current unit time
+	// Slots of each level, created when first used as most houses schedule few events
+	private Slot[][] levels = new Slot[LEVEL_COUNT][];
+	private Slot overflow = new Slot();
+	private int[] levelSizes = new int[LEVEL_COUNT]; // events in each level
+	private int size = 0;
+
+	/**
+	 * Constructor for TimingWheel.
+	 * @param  time Unit time to start at
+	 */
+	public TimingWheel(int time) {
+		this.time = time;
+	}
+
+	/**
+	 * @return  Current unit time of the wheel
+	 */
+	public int getTime() {
+		return time;
+	}
+
+	/**
+	 * @return  Number of events scheduled, including those due now
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Schedule an event.
+	 * @param  dueTime Unit time the event is due [>= getTime()]
+	 * @param  event Event to schedule
+	 */
+	public void schedule(int dueTime, E event) {
+		if (dueTime < time) {
+			Logger.error(String.format("Event cannot be scheduled for unit time %d, wheel is at %d", dueTime, time));
+		}
+		place(dueTime, event);
+		size++;
+	}
+
+	/**
+	 * Put an event in the lowest level whose slots reach it.
+	 * An event can go in a level if it is due before the slot of the current unit time comes round again.
+	 * @param  dueTime Unit time the event is due
+	 * @param  event Event to place
+	 */
+	private void place(int dueTime, Object event) {
+		for (int l = 0; l < LEVEL_COUNT; l++) {
+			if (dueTime / SLOT_LENGTHS[l] - time / SLOT_LENGTHS[l] < SLOT_COUNT) {
+				int s = (int) ((dueTime / SLOT_LENGTHS[l]) % SLOT_COUNT);
+				if (levels[l] == null) {
+					levels[l] = new Slot[SLOT_COUNT];
+				}
+				if (levels[l][s] == null) {
+					levels[l][s] = new Slot();
+				}
+				levels[l][s].add(dueTime, event);
+				levelSizes[l]++;
+				return;
+			}
+		}
+		overflow.add(dueTime, event);
+	}
+
+	/**
+	 * Move the wheel forward to a unit time, discarding events due before it.
+	 * @param  newTime Unit time to move to [>= getTime()]
+	 */
+	private void advanceTo(int newTime) {
+		if (newTime < time) {
+			Logger.error(String.format("Timing wheel cannot move back from unit time %d to %d", time, newTime));
+		}
+		while (time < newTime) {
+			if (size == 0) {
+				// Nothing to move down or discard, jump straight there
+				time = newTime;
+				return;
+			}
+			// Nothing changes until the next slot of the lowest level holding events
+			int l = 0;
+			while (l < LEVEL_COUNT && levelSizes[l] == 0) {
+				l++;
+			}
+			if (l > 0) {
+				long nextSlot = (time / SLOT_LENGTHS[l] + 1) * SLOT_LENGTHS[l];
+				time = (int) Math.min(nextSlot, newTime);
+			}
+			else {
+				Slot passed = getSlot(0, time % SLOT_COUNT);
+				if (passed != null) {
+					size -= passed.size;
+					levelSizes[0] -= passed.size;
+					passed.clear();
+				}
+				time++;
+			}
+			cascade();
+		}
+	}
+
+	/**
+	 * Move events down from higher levels whose slot starts at the current unit time.
+	 * Higher levels move first so their events can continue down in the same unit time.
+	 */
+	private void cascade() {
+		if (time % SLOT_LENGTHS[LEVEL_COUNT] == 0) {
+			replace(overflow);
+		}
+		for (int l = LEVEL_COUNT - 1; l > 0; l--) {
+			if (time % SLOT_LENGTHS[l] == 0) {
+				Slot slot = getSlot(l, (int) ((time / SLOT_LENGTHS[l]) % SLOT_COUNT));
+				if (slot != null) {
+					levelSizes[l] -= slot.size;
+					replace(slot);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param  l Level
+	 * @param  s Index of slot in level
+	 * @return  Slot, null if never used
+	 */
+	private Slot getSlot(int l, int s) {
+		return (levels[l] == null) ? null : levels[l][s];
+	}
+
+	/**
+	 * Empty a slot and place its events again from the current unit time.
+	 * @param  slot Slot to empty, null if never used
+	 */
+	private void replace(Slot slot) {
+		if (slot == null || slot.size == 0) {
+			return;
+		}
+		int count = slot.size;
+		int[] dueTimes = Arrays.copyOf(slot.dueTimes, count);
+		Object[] events = Arrays.copyOf(slot.events, count);
+		slot.clear();
+		for (int i = 0; i < count; i++) {
+			place(dueTimes[i], events[i]);
+		}
+	}
+
+	/**
+	 * Get the events due in a unit time, moving the wheel forward to it.
+	 * Events stay due until the wheel moves past the unit time, so this can be called more than once.
+	 * @param  dueTime Unit time [>= getTime()]
+	 * @return  Events due in no particular order, not to be modified and only valid until the next
+	 *          event is scheduled
+	 */
+	@SuppressWarnings("unchecked")
+	public List<E> getDue(int dueTime) {
+		advanceTo(dueTime);
+		Slot slot = getSlot(0, time % SLOT_COUNT);
+		if (slot == null || slot.size == 0) {
+			return Collections.emptyList();
+		}
+		return (List<E>) Arrays.asList(slot.events).subList(0, slot.size);
+	}
+
+	/**
+	 * @param  dueTime Unit time [>= getTime()]
+	 * @return  True if an event is due in the unit time
+	 */
+	public boolean isDue(int dueTime) {
+		advanceTo(dueTime);
+		Slot slot = getSlot(0, time % SLOT_COUNT);
+		return slot != null && slot.size > 0;
+	}
+
+	/**
+	 * Get the number of unit times until the next event, moving the wheel forward to a unit time
+	 * and looking no further than a limit from it.
+	 * Only the day of the unit time is looked at, which ends at the next multiple of House.DAY_LENGTH.
+	 * @param  fromTime Unit time to look from [>= getTime()]
+	 * @param  limit Unit times to look ahead [>= 0]
+	 * @return  Unit times from fromTime until the next event, limit or the end of the day if no
+	 *          event is due sooner
+	 */
+	public int getTimeUntilNext(int fromTime, int limit) {
+		advanceTo(fromTime);
+		limit = Math.min(limit, SLOT_COUNT - (time % SLOT_COUNT));
+		if (size == 0) {
+			return limit;
+		}
+		// Level 0 holds every event due in the current day
+		for (int t = 0; t < limit; t++) {
+			Slot slot = getSlot(0, (time + t) % SLOT_COUNT);
+			if (slot != null && slot.size > 0) {
+				return t;
+			}
+		}
+		return limit;
+	}
+
+	/**
+	 * Get every event scheduled and when it is due, e.g. to copy the wheel.
+	 * @param  dueTimes List to add the due unit time of each event to
+	 * @param  events List to add each event to
+	 */
+	@SuppressWarnings("unchecked")
+	public void getScheduled(ArrayList<Integer> dueTimes, ArrayList<E> events) {
+		for (Slot[] level : levels) {
+			for (int s = 0; level != null && s < SLOT_COUNT; s++) {
+				Slot slot = level[s];
+				for (int i = 0; slot != null && i < slot.size; i++) {
+					dueTimes.add(slot.dueTimes[i]);
+					events.add((E) slot.events[i]);
+				}
+			}
+		}
+		for (int i = 0; i < overflow.size; i++) {
+			dueTimes.add(overflow.dueTimes[i]);
+			events.add((E) overflow.events[i]);
+		}
+	}
+
+	/**
+	 * Class representing the events of a slot, in arrays that grow as needed.
+	 */
+	private static class Slot {
+		private int[] dueTimes = new int[0];
+		private Object[] events = new Object[0];
+		private int size = 0;
+
+		/**
+		 * @param  dueTime Unit time the event is due
+		 * @param  event Event to add
+		 */
+		void add(int dueTime, Object event) {
+			if (size == events.length) {
+				int capacity = Math.max(4, size * 2);
+				dueTimes = Arrays.copyOf(dueTimes, capacity);
+				events = Arrays.copyOf(events, capacity);
+			}
+			dueTimes[size] = dueTime;
+			events[size] = event;
+			size++;
+		}
+
+		/**
+		 * Remove every event, keeping the arrays for reuse.
+		 */
+		void clear() {
+			Arrays.fill(events, 0, size, null);
+			size = 0;
+		}
+	}
+
+}
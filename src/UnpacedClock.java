@@ -0,0 +1,19 @@
+/**
+ * Class of SimulationClock that never waits, running a simulation as fast as possible.
+ *
+ * ECS Smart Meter - COMP1202 Coursework
+ * @author dsj1n15
+ */
+public class UnpacedClock extends SimulationClock {
+
+	@Override
+	public void start() {
+		// Nothing to track
+	}
+
+	@Override
+	public void awaitTick(long tick) {
+		// Never wait
+	}
+
+}
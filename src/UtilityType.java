@@ -12,6 +12,9 @@ public enum UtilityType {
     WATER("Water"),
     GAS("Gas");
 
+	// Cached values, as values() copies the array on every call
+	private final static UtilityType[] TYPES = values();
+
 	// Enumeration properties
     private String stringType; // as a string type
     private String meterType; // as a meter type
@@ -39,6 +42,20 @@ public enum UtilityType {
         return meterType;
     }
 
+    /**
+     * Find the UtilityType of a string type, ignoring case.
+     * @param  stringType Utility type as a string e.g. 'Electric'
+     * @return  Matching UtilityType, null if none
+     */
+    public static UtilityType fromString(String stringType) {
+        for (UtilityType type : TYPES) {
+            if (type.stringType.equalsIgnoreCase(stringType)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
     /**
      * @return  Array of all UtilityTypes as Meter strings
      */
@@ -44,7 +44,7 @@ public class WashingMachine extends Appliance {
 		
 		// Define Appliance tasks on object instantiation
 		// An exception is thrown if the task method does not exist
-		addTask(new ApplianceTask("DoWashing", getMethod("turnOn"), false, false));
+		addTask(new ApplianceTask("DoWashing", Appliance::turnOn, false, false));
 	}
 	
 	@Override
@@ -47,8 +47,8 @@ public class WaterTurbine extends Appliance {
 		
 		// Define Appliance tasks on object instantiation
 		// An exception is thrown if the task method does not exist
-		addTask(new ApplianceTask("TurnOnWaterTurbine", getMethod("turnOn"), true, false));
-		addTask(new ApplianceTask("TurnOffWaterTurbine", getMethod("turnOff"), true, true));
+		addTask(new ApplianceTask("TurnOnWaterTurbine", Appliance::turnOn, true, false));
+		addTask(new ApplianceTask("TurnOffWaterTurbine", Appliance::turnOff, true, true));
 	}
 	
 	@Override
@@ -1,8 +1,14 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 /**
  * Class of Appliance representing a wind turbine.
  * Assumed to be an always on Appliance that can generate electricity only.
  * Electricity generation fluctuates every unit time and is calculated using a wind modifier (constrained by a maximum).
  * The wind modifier fluctuates every unit time with a random value of sway (constrained by a maximum).
+ * Random values are drawn from the turbine's own RandomStream, if no starting wind modifier is given
+ * it is drawn from the stream at the first unit time so that it follows the stream's seed.
  * This modification has been implemented by overriding the timePasses method.
  * Duty cycle always default.
  * 
@@ -22,6 +28,7 @@ public class WindTurbine extends Appliance {
 	private final static double MAX_SWAY = 0.1;
 	private final static double MIN_WIND_MODIFIER = 0;
 	private final static double MAX_WIND_MODIFIER = 1;
+	private final static double UNSET_WIND_MODIFIER = Double.NaN;
 	
 	// Appliance properties
 	private int maxElectricUsage;
@@ -75,10 +82,9 @@ public class WindTurbine extends Appliance {
 		// Still pas maxElectricUsage to constructor for verification
 		super(maxElectricUsage, gasUsage, waterUsage, DEFAULT_TIME_ON);
 		
-		// If windModifier was not set
+		// If windModifier was not set, leave it to be drawn when first needed
 		if (windModifier == null) {
-			// Set as random value [0 <= n <= 1]
-			windModifier = MIN_WIND_MODIFIER + (Math.random() * (MAX_WIND_MODIFIER - MIN_WIND_MODIFIER));
+			windModifier = UNSET_WIND_MODIFIER;
 		}
 		else if (windModifier < MIN_WIND_MODIFIER || windModifier > MAX_WIND_MODIFIER) {
 			Logger.error(String.format("Wind modifier must be between '%.2f' and '%.2f'", MIN_WIND_MODIFIER, MAX_WIND_MODIFIER));
@@ -100,22 +106,58 @@ public class WindTurbine extends Appliance {
 	 */
 	@Override
 	public void timePasses() {
+		RandomStream random = getRandomStream();
+		// If windModifier was not set, set as random value [0 <= n <= 1]
+		if (Double.isNaN(windModifier)) {
+			windModifier = MIN_WIND_MODIFIER + (random.nextDouble() * (MAX_WIND_MODIFIER - MIN_WIND_MODIFIER));
+		}
 		// Get random value between MIN_SWAY and MAX_SWAY
-		double sway = MIN_SWAY + (Math.random() * (MAX_SWAY - MIN_SWAY));
+		double sway = MIN_SWAY + (random.nextDouble() * (MAX_SWAY - MIN_SWAY));
 		// Get minimum value of windModifier, maximise to MIN_WIND_MODIFIER
 		double min = Math.max(windModifier - sway, MIN_WIND_MODIFIER);
 		// Get maximum value of windModifier, minimise to MAX_WIND_MODIFIER
 		double max = Math.min(windModifier + sway, MAX_WIND_MODIFIER);
 		
 		// Get random value between min and max for new windModifier
-		windModifier = min + (Math.random() * (max - min));
+		windModifier = min + (random.nextDouble() * (max - min));
 		// Update electric usage, cast will always round down
-		super.electricUsage = (int) (windModifier * maxElectricUsage);	
+		setUsageFromType(UtilityType.ELECTRIC, (int) (windModifier * maxElectricUsage));
 		
 		// Call timePasses as normal
 		super.timePasses();
 	}
 
+	/**
+	 * Write the current wind modifier, electric usage and random stream.
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void writeState(DataOutputStream out) throws IOException {
+		out.writeDouble(windModifier);
+		out.writeInt(getUsageFromType(UtilityType.ELECTRIC));
+		out.writeLong(getRandomStream().getState());
+	}
+
+	/**
+	 * Read the current wind modifier, electric usage and random stream.
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void readState(DataInputStream in) throws IOException {
+		windModifier = in.readDouble();
+		setUsageFromType(UtilityType.ELECTRIC, in.readInt());
+		getRandomStream().setState(in.readLong());
+	}
+
+	/**
+	 * Wind turbine usage changes randomly every unit time.
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isStochastic() {
+		return true;
+	}
+
 	@Override
 	public String getType() {
 		return ApplianceType.WIND_TURBINE.asString();